@@ -0,0 +1,68 @@
+package co.moonmonkeylabs.realmrecyclerview.benchmark;
+
+import java.util.Random;
+
+/**
+ * The changes applied to the results between two change notifications.
+ */
+public enum ChangePattern {
+
+    /**
+     * 1% new rows at the end.
+     */
+    APPEND,
+
+    /**
+     * 1% new rows at the start.
+     */
+    PREPEND,
+
+    /**
+     * 1% of the rows are edited, removed or inserted at random positions.
+     */
+    RANDOM_EDITS,
+
+    /**
+     * Every row ends up at a new position, e.g. after the sort order changed.
+     */
+    RESORT;
+
+    public InMemoryResults apply(InMemoryResults results, Random random) {
+        final int changeCount = Math.max(1, results.size() / 100);
+        final InMemoryResults.Builder builder = results.toBuilder();
+        switch (this) {
+            case APPEND:
+                for (int i = 0; i < changeCount; i++) {
+                    builder.insert(builder.size(), random);
+                }
+                break;
+            case PREPEND:
+                for (int i = 0; i < changeCount; i++) {
+                    builder.insert(0, random);
+                }
+                break;
+            case RANDOM_EDITS:
+                for (int i = 0; i < changeCount; i++) {
+                    final int position = random.nextInt(builder.size());
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            builder.edit(position, random);
+                            break;
+                        case 1:
+                            builder.remove(position);
+                            break;
+                        default:
+                            builder.insert(position, random);
+                            break;
+                    }
+                }
+                break;
+            case RESORT:
+                builder.shuffle(random);
+                break;
+            default:
+                throw new IllegalStateException("Unknown pattern");
+        }
+        return builder.build();
+    }
+}
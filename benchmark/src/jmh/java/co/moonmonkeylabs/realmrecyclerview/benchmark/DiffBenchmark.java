@@ -0,0 +1,72 @@
+package co.moonmonkeylabs.realmrecyclerview.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import co.moonmonkeylabs.realmrecyclerview.diff.DiffResult;
+import co.moonmonkeylabs.realmrecyclerview.diff.DiffStrategy;
+import co.moonmonkeylabs.realmrecyclerview.diff.IdSnapshot;
+import co.moonmonkeylabs.realmrecyclerview.diff.KeyedDiffStrategy;
+import co.moonmonkeylabs.realmrecyclerview.diff.TrimmingDiffStrategy;
+
+/**
+ * Diffing the dispatched ids against the ids after a change. The Myers diff doesn't scale to these
+ * sizes and is measured by the {@link MyersDiffBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DiffBenchmark {
+
+    public enum Strategy {
+        KEYED,
+        TRIMMING_KEYED
+    }
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"APPEND", "PREPEND", "RANDOM_EDITS", "RESORT"})
+    public ChangePattern pattern;
+
+    @Param({"KEYED", "TRIMMING_KEYED"})
+    public Strategy strategy;
+
+    @Param({"false", "true"})
+    public boolean contents;
+
+    private IdSnapshot oldIds;
+    private IdSnapshot newIds;
+    private DiffStrategy diffStrategy;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        final InMemoryResults oldResults = InMemoryResults.create(size, random);
+        final InMemoryResults newResults = pattern.apply(oldResults, random);
+        if (contents) {
+            oldIds = oldResults.snapshotIdsAndContents(new IdSnapshot());
+            newIds = newResults.snapshotIdsAndContents(new IdSnapshot());
+        } else {
+            oldIds = oldResults.snapshotIds(new IdSnapshot());
+            newIds = newResults.snapshotIds(new IdSnapshot());
+        }
+        diffStrategy = strategy == Strategy.KEYED
+                ? new KeyedDiffStrategy()
+                : new TrimmingDiffStrategy(new KeyedDiffStrategy());
+    }
+
+    @Benchmark
+    public DiffResult diff() {
+        return diffStrategy.calculateDiff(oldIds, newIds);
+    }
+}
@@ -0,0 +1,51 @@
+package co.moonmonkeylabs.realmrecyclerview.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import co.moonmonkeylabs.realmrecyclerview.diff.IdSnapshot;
+
+/**
+ * Reading the ids of the results on a change notification.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IdSnapshotBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private InMemoryResults results;
+    private IdSnapshot recycled;
+
+    @Setup
+    public void setUp() {
+        results = InMemoryResults.create(size, new Random(42));
+        recycled = new IdSnapshot(size);
+    }
+
+    @Benchmark
+    public IdSnapshot ids() {
+        return results.snapshotIds(new IdSnapshot());
+    }
+
+    @Benchmark
+    public IdSnapshot recycledIds() {
+        return results.snapshotIds(recycled);
+    }
+
+    @Benchmark
+    public IdSnapshot recycledIdsAndContents() {
+        return results.snapshotIdsAndContents(recycled);
+    }
+}
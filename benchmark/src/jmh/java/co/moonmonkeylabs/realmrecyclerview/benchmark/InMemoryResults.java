@@ -0,0 +1,221 @@
+package co.moonmonkeylabs.realmrecyclerview.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import co.moonmonkeylabs.realmrecyclerview.RowReader;
+import co.moonmonkeylabs.realmrecyclerview.RowSnapshots;
+import co.moonmonkeylabs.realmrecyclerview.diff.Fingerprint;
+import co.moonmonkeylabs.realmrecyclerview.diff.IdSnapshot;
+
+/**
+ * In-memory stand-in for the TableOrView of the RealmResults. The rows have a long primary key,
+ * a String column the section headers are created from and a long content column. The snapshots
+ * are taken with the {@link RowSnapshots} of the RealmBasedRecyclerViewAdapter.
+ */
+public class InMemoryResults implements RowReader {
+
+    public static final long ID_COLUMN = 0;
+    public static final long NAME_COLUMN = 1;
+    public static final long CONTENT_COLUMN = 2;
+
+    private static final char[] LETTERS = "abcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    private final long[] ids;
+    private final String[] names;
+    private final long[] contents;
+    private final long nextId;
+    // The fingerprints of the name and content columns of a row.
+    private final long[] contentValues = new long[2];
+
+    private InMemoryResults(long[] ids, String[] names, long[] contents, long nextId) {
+        this.ids = ids;
+        this.names = names;
+        this.contents = contents;
+        this.nextId = nextId;
+    }
+
+    /**
+     * Creates size rows sorted by name, so that they form one section per starting letter.
+     */
+    public static InMemoryResults create(int size, Random random) {
+        final String[] names = new String[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = randomName(random);
+        }
+        Arrays.sort(names);
+        final long[] ids = new long[size];
+        final long[] contents = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i;
+            contents[i] = random.nextLong();
+        }
+        return new InMemoryResults(ids, names, contents, size);
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public long getRowId(int position) {
+        return getLong(ID_COLUMN, position);
+    }
+
+    @Override
+    public void readContent(int position, long[] values) {
+        values[0] = Fingerprint.of(getString(NAME_COLUMN, position));
+        values[1] = getLong(CONTENT_COLUMN, position);
+    }
+
+    @Override
+    public long getHeaderKey(int position) {
+        return Fingerprint.of(getString(NAME_COLUMN, position));
+    }
+
+    /**
+     * Reads the headers from the first letter of the name, like the default
+     * createHeaderFromColumnValue.
+     */
+    @Override
+    public void readHeaders(int start, String[] headers) {
+        for (int i = 0; i < headers.length; i++) {
+            headers[i] = getString(NAME_COLUMN, start + i).substring(0, 1);
+        }
+    }
+
+    public long getLong(long columnIndex, long rowIndex) {
+        if (columnIndex == ID_COLUMN) {
+            return ids[(int) rowIndex];
+        } else if (columnIndex == CONTENT_COLUMN) {
+            return contents[(int) rowIndex];
+        }
+        throw new IllegalArgumentException("Not a long column: " + columnIndex);
+    }
+
+    public String getString(long columnIndex, long rowIndex) {
+        if (columnIndex == NAME_COLUMN) {
+            return names[(int) rowIndex];
+        }
+        throw new IllegalArgumentException("Not a String column: " + columnIndex);
+    }
+
+    /**
+     * Returns the ids of the rows, like the adapter does for the animated updates.
+     */
+    public IdSnapshot snapshotIds(IdSnapshot snapshot) {
+        snapshot.reset(size());
+        RowSnapshots.addRows(this, snapshot, 0, size(), null, null);
+        return snapshot;
+    }
+
+    /**
+     * Returns the ids of the rows with the name and content columns as animateContentColumns.
+     */
+    public IdSnapshot snapshotIdsAndContents(IdSnapshot snapshot) {
+        snapshot.reset(size());
+        RowSnapshots.addRows(this, snapshot, 0, size(), null, contentValues);
+        return snapshot;
+    }
+
+    /**
+     * Returns the ids of the rows with the fingerprint of their raw header value, like the row
+     * keys of the section headers.
+     */
+    public IdSnapshot snapshotRowKeys() {
+        return RowSnapshots.readRowKeys(this, new IdSnapshot(size()));
+    }
+
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    private static String randomName(Random random) {
+        final char[] name = new char[8];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = LETTERS[random.nextInt(LETTERS.length)];
+        }
+        return new String(name);
+    }
+
+    /**
+     * Applies changes to a copy of the rows.
+     */
+    public static class Builder {
+
+        private Row[] rows;
+        private int size;
+        private long nextId;
+
+        private Builder(InMemoryResults results) {
+            size = results.size();
+            rows = new Row[size + size / 10 + 16];
+            for (int i = 0; i < size; i++) {
+                rows[i] = new Row(results.ids[i], results.names[i], results.contents[i]);
+            }
+            nextId = results.nextId;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Inserts a new row that gets the name of its neighbour, so the sections stay sorted.
+         */
+        public void insert(int position, Random random) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            final String name = size == 0
+                    ? randomName(random) : rows[Math.min(position, size - 1)].name;
+            System.arraycopy(rows, position, rows, position + 1, size - position);
+            rows[position] = new Row(nextId++, name, random.nextLong());
+            size++;
+        }
+
+        public void remove(int position) {
+            System.arraycopy(rows, position + 1, rows, position, size - position - 1);
+            rows[--size] = null;
+        }
+
+        public void edit(int position, Random random) {
+            final Row row = rows[position];
+            rows[position] = new Row(row.id, row.name, random.nextLong());
+        }
+
+        public void shuffle(Random random) {
+            for (int i = size - 1; i > 0; i--) {
+                final int j = random.nextInt(i + 1);
+                final Row row = rows[i];
+                rows[i] = rows[j];
+                rows[j] = row;
+            }
+        }
+
+        public InMemoryResults build() {
+            final long[] ids = new long[size];
+            final String[] names = new String[size];
+            final long[] contents = new long[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = rows[i].id;
+                names[i] = rows[i].name;
+                contents[i] = rows[i].content;
+            }
+            return new InMemoryResults(ids, names, contents, nextId);
+        }
+    }
+
+    private static class Row {
+        final long id;
+        final String name;
+        final long content;
+
+        Row(long id, String name, long content) {
+            this.id = id;
+            this.name = name;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package co.moonmonkeylabs.realmrecyclerview.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import co.moonmonkeylabs.realmrecyclerview.diff.DiffResult;
+import co.moonmonkeylabs.realmrecyclerview.diff.IdSnapshot;
+import co.moonmonkeylabs.realmrecyclerview.diff.MyersDiffStrategy;
+
+/**
+ * The previous DiffUtils based diff as a baseline for the {@link DiffBenchmark}. Limited to the
+ * sizes it finishes in reasonable time for a full re-sort.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MyersDiffBenchmark {
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Param({"APPEND", "PREPEND", "RANDOM_EDITS", "RESORT"})
+    public ChangePattern pattern;
+
+    private IdSnapshot oldIds;
+    private IdSnapshot newIds;
+    private final MyersDiffStrategy diffStrategy = new MyersDiffStrategy();
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        final InMemoryResults oldResults = InMemoryResults.create(size, random);
+        oldIds = oldResults.snapshotIds(new IdSnapshot());
+        newIds = pattern.apply(oldResults, random).snapshotIds(new IdSnapshot());
+    }
+
+    @Benchmark
+    public DiffResult diff() {
+        return diffStrategy.calculateDiff(oldIds, newIds);
+    }
+}
@@ -0,0 +1,77 @@
+package co.moonmonkeylabs.realmrecyclerview.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import co.moonmonkeylabs.realmrecyclerview.SectionIndex;
+import co.moonmonkeylabs.realmrecyclerview.diff.IdSnapshot;
+
+/**
+ * Building the section headers after a change. Every invocation applies the change and reverts it
+ * again, so the measured time covers two updates and the index is unchanged afterwards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SectionIndexBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"APPEND", "PREPEND", "RANDOM_EDITS", "RESORT"})
+    public ChangePattern pattern;
+
+    private InMemoryResults oldResults;
+    private InMemoryResults newResults;
+    private IdSnapshot oldRowKeys;
+    private IdSnapshot newRowKeys;
+    private final SectionIndex sectionIndex = new SectionIndex();
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        oldResults = InMemoryResults.create(size, random);
+        newResults = pattern.apply(oldResults, random);
+        oldRowKeys = oldResults.snapshotRowKeys();
+        newRowKeys = newResults.snapshotRowKeys();
+        rebuild(oldResults);
+    }
+
+    @Benchmark
+    public SectionIndex rebuild() {
+        rebuild(newResults);
+        rebuild(oldResults);
+        return sectionIndex;
+    }
+
+    @Benchmark
+    public SectionIndex incrementalUpdate() {
+        update(oldRowKeys, newRowKeys, newResults);
+        update(newRowKeys, oldRowKeys, oldResults);
+        return sectionIndex;
+    }
+
+    @Benchmark
+    public SectionIndex incrementalUpdateWithRowKeys() {
+        update(oldRowKeys, newResults.snapshotRowKeys(), newResults);
+        update(newRowKeys, oldResults.snapshotRowKeys(), oldResults);
+        return sectionIndex;
+    }
+
+    private void rebuild(InMemoryResults results) {
+        sectionIndex.rebuild(results);
+    }
+
+    private void update(IdSnapshot rowKeys, IdSnapshot newKeys, InMemoryResults results) {
+        sectionIndex.update(rowKeys, newKeys, results);
+    }
+}
@@ -0,0 +1,172 @@
+package co.moonmonkeylabs.realmrecyclerview;
+
+/**
+ * Opt-in metrics of the {@link io.realm.RealmBasedRecyclerViewAdapter} and the
+ * {@link RealmRecyclerView}. Records the duration of the phases of an update and of the view
+ * holder callbacks, how many notifications were full refreshes versus granular range
+ * notifications, the sizes of the diffs and an estimate of the bytes allocated for the updates.
+ *
+ * All values are recorded on the main thread except for the {@link Phase#DIFF} timings of a
+ * background diff. The snapshots can be taken from any thread.
+ */
+public class AdapterMetrics {
+
+    public enum Phase {
+        /**
+         * The handling of a change notification on the main thread, including all other update
+         * phases that run on the main thread.
+         */
+        CHANGE,
+        /**
+         * Reading the ids of the results.
+         */
+        SNAPSHOT,
+        /**
+         * Diffing the ids, either inside the change listener or on the diff executor.
+         */
+        DIFF,
+        /**
+         * Updating the section headers.
+         */
+        SECTIONS,
+        /**
+         * Dispatching the notifications of a diff.
+         */
+        DISPATCH,
+        CREATE_VIEW_HOLDER,
+        BIND_VIEW_HOLDER,
+        /**
+         * The scroll handling of the {@link RealmRecyclerView}, e.g. the load more check.
+         */
+        SCROLL
+    }
+
+    public interface Listener {
+
+        /**
+         * Called after a phase has been recorded. Called on the diff executor for a background
+         * diff.
+         */
+        void onPhaseRecorded(Phase phase, long durationNanos);
+
+        /**
+         * Called after the notifications of an update have been dispatched.
+         *
+         * @param fullRefresh true if the update was dispatched with notifyDataSetChanged
+         * @param diffSize the number of updates of the diff or -1 if there was no diff
+         * @param allocatedBytes the estimate of the bytes allocated for the update
+         */
+        void onUpdateDispatched(boolean fullRefresh, int diffSize, long allocatedBytes);
+    }
+
+    private final Histogram[] phaseHistograms = new Histogram[Phase.values().length];
+    private final Histogram diffSizeHistogram = new Histogram();
+    private final Histogram allocationHistogram = new Histogram();
+    private volatile Listener listener;
+    private long fullRefreshCount;
+    private long granularNotificationCount;
+
+    public AdapterMetrics() {
+        for (int i = 0; i < phaseHistograms.length; i++) {
+            phaseHistograms[i] = new Histogram();
+        }
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the current time for the start of a phase.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the phase that started at startNanos, see {@link #start()}.
+     */
+    public void end(Phase phase, long startNanos) {
+        record(phase, System.nanoTime() - startNanos);
+    }
+
+    public void record(Phase phase, long durationNanos) {
+        phaseHistograms[phase.ordinal()].record(durationNanos);
+        final Listener listener = this.listener;
+        if (listener != null) {
+            listener.onPhaseRecorded(phase, durationNanos);
+        }
+    }
+
+    /**
+     * Records a dispatched update.
+     *
+     * @param fullRefresh true if the update was dispatched with notifyDataSetChanged
+     * @param diffSize the number of updates of the diff or -1 if there was no diff
+     * @param allocatedBytes the estimate of the bytes allocated for the update
+     */
+    public void recordUpdate(boolean fullRefresh, int diffSize, long allocatedBytes) {
+        if (diffSize >= 0) {
+            diffSizeHistogram.record(diffSize);
+        }
+        allocationHistogram.record(allocatedBytes);
+        final Listener listener = this.listener;
+        if (listener != null) {
+            listener.onUpdateDispatched(fullRefresh, diffSize, allocatedBytes);
+        }
+    }
+
+    /**
+     * Records a notification of the adapter observers.
+     *
+     * @param full true for notifyDataSetChanged and false for the range notifications
+     */
+    public synchronized void recordNotification(boolean full) {
+        if (full) {
+            fullRefreshCount++;
+        } else {
+            granularNotificationCount++;
+        }
+    }
+
+    /**
+     * Returns the durations of the phase in nanoseconds.
+     */
+    public Histogram.Snapshot getPhaseSnapshot(Phase phase) {
+        return phaseHistograms[phase.ordinal()].snapshot();
+    }
+
+    /**
+     * Returns the number of updates of the dispatched diffs.
+     */
+    public Histogram.Snapshot getDiffSizeSnapshot() {
+        return diffSizeHistogram.snapshot();
+    }
+
+    /**
+     * Returns the bytes allocated per update for the arrays of the id snapshots and row keys,
+     * plus an estimate for the diff results. Recycled snapshots only count when they grow. The
+     * internal allocations of the diff strategy aren't included.
+     */
+    public Histogram.Snapshot getAllocationSnapshot() {
+        return allocationHistogram.snapshot();
+    }
+
+    public synchronized long getFullRefreshCount() {
+        return fullRefreshCount;
+    }
+
+    public synchronized long getGranularNotificationCount() {
+        return granularNotificationCount;
+    }
+
+    public synchronized void reset() {
+        for (Histogram histogram : phaseHistograms) {
+            histogram.reset();
+        }
+        diffSizeHistogram.reset();
+        allocationHistogram.reset();
+        fullRefreshCount = 0;
+        granularNotificationCount = 0;
+    }
+}
@@ -0,0 +1,131 @@
+package co.moonmonkeylabs.realmrecyclerview;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import io.realm.RealmBasedRecyclerViewAdapter;
+
+/**
+ * Binds the next rows in the scroll direction while the main thread is idle, so they don't have
+ * to be created and bound in the frame they scroll in. Works with every layout manager: the rows
+ * are bound through the {@link RecyclerView.Recycler} and kept in its view cache, from which the
+ * layout manager picks them up without binding them again.
+ *
+ * The recycler is taken from the {@link RecyclerView.ViewCacheExtension} callback, which the
+ * recyclerView calls for every row it has to create. This extension never provides a view itself.
+ */
+class BindPrefetcher extends RecyclerView.ViewCacheExtension
+        implements MessageQueue.IdleHandler {
+
+    private final RecyclerView recyclerView;
+    private RecyclerView.Recycler recycler;
+    private int prefetchItemCount;
+
+    // The last visible row in the scroll direction and the rows bound after it.
+    private int anchor = RecyclerView.NO_POSITION;
+    private int direction;
+    private int prefetched;
+    private boolean isIdleHandlerAdded;
+
+    BindPrefetcher(RecyclerView recyclerView) {
+        this.recyclerView = recyclerView;
+    }
+
+    void setPrefetchItemCount(int prefetchItemCount) {
+        this.prefetchItemCount = prefetchItemCount;
+        if (prefetchItemCount == 0) {
+            cancel();
+        }
+    }
+
+    int getPrefetchItemCount() {
+        return prefetchItemCount;
+    }
+
+    @Override
+    public View getViewForPositionAndType(RecyclerView.Recycler recycler, int position, int type) {
+        this.recycler = recycler;
+        return null;
+    }
+
+    /**
+     * Moves the prefetch window to the visible rows.
+     *
+     * @param firstVisible the first visible position
+     * @param lastVisible the last visible position
+     * @param delta the scrolled pixels, positive towards the end
+     */
+    void onScrolled(int firstVisible, int lastVisible, int delta) {
+        if (prefetchItemCount == 0 || delta == 0 || firstVisible == RecyclerView.NO_POSITION) {
+            return;
+        }
+        final int newDirection = delta > 0 ? 1 : -1;
+        final int newAnchor = newDirection > 0 ? lastVisible : firstVisible;
+        if (newDirection != direction) {
+            prefetched = 0;
+        } else if (newAnchor != anchor) {
+            // The rows bound ahead of the old anchor that are still ahead are kept.
+            prefetched = Math.max(0, prefetched - Math.abs(newAnchor - anchor));
+        }
+        direction = newDirection;
+        anchor = newAnchor;
+        if (prefetched < prefetchItemCount && !isIdleHandlerAdded) {
+            Looper.myQueue().addIdleHandler(this);
+            isIdleHandlerAdded = true;
+        }
+    }
+
+    void cancel() {
+        if (isIdleHandlerAdded) {
+            Looper.myQueue().removeIdleHandler(this);
+            isIdleHandlerAdded = false;
+        }
+        anchor = RecyclerView.NO_POSITION;
+        prefetched = 0;
+    }
+
+    /**
+     * Binds a single row, to keep the work per idle frame short. Returns false once the window
+     * is bound, which removes this handler until the next scroll.
+     */
+    @Override
+    public boolean queueIdle() {
+        final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (recycler == null
+                || layoutManager == null
+                || anchor == RecyclerView.NO_POSITION
+                || prefetched >= prefetchItemCount
+                || recyclerView.hasPendingAdapterUpdates()
+                || recyclerView.isComputingLayout()
+                || recyclerView.isLayoutFrozen()
+                || hasUndispatchedChange()) {
+            isIdleHandlerAdded = false;
+            return false;
+        }
+        final int position = anchor + direction * (prefetched + 1);
+        if (position < 0 || position >= layoutManager.getItemCount()) {
+            isIdleHandlerAdded = false;
+            return false;
+        }
+        prefetched++;
+        if (layoutManager.findViewByPosition(position) == null) {
+            // Puts the bound row into the view cache, or takes it out and back in if it's
+            // already there.
+            recycler.recycleView(recycler.getViewForPosition(position));
+        }
+        isIdleHandlerAdded = prefetched < prefetchItemCount;
+        return isIdleHandlerAdded;
+    }
+
+    /**
+     * Returns true while the adapter binds from results the recyclerView hasn't been notified
+     * of. Rows bound ahead then would have to be bound again.
+     */
+    private boolean hasUndispatchedChange() {
+        final RecyclerView.Adapter adapter = recyclerView.getAdapter();
+        return adapter instanceof RealmBasedRecyclerViewAdapter
+                && ((RealmBasedRecyclerViewAdapter) adapter).hasUndispatchedChange();
+    }
+}
@@ -0,0 +1,48 @@
+package co.moonmonkeylabs.realmrecyclerview;
+
+import java.util.List;
+
+/**
+ * Payload of the change notifications for rows whose animateContentColumns changed. It holds a
+ * bit mask of the changed columns, with bit i set for the i-th column passed to
+ * {@link io.realm.RealmBasedRecyclerViewAdapter#setAnimateContentColumnNames(String...)}.
+ */
+public class ContentChange {
+
+    /**
+     * The change of a row whose changed columns aren't known.
+     */
+    public static final ContentChange ALL_COLUMNS = new ContentChange(-1L);
+
+    private final long changedColumns;
+
+    public ContentChange(long changedColumns) {
+        this.changedColumns = changedColumns;
+    }
+
+    public long getChangedColumns() {
+        return changedColumns;
+    }
+
+    public boolean isColumnChanged(int column) {
+        return (changedColumns & (1L << column)) != 0;
+    }
+
+    /**
+     * Returns the columns changed by all payloads of a bind. All bits are set if any payload isn't
+     * a ContentChange or there are none, i.e. the row has to be bound completely.
+     */
+    public static long getChangedColumns(List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            return -1L;
+        }
+        long changedColumns = 0;
+        for (Object payload : payloads) {
+            if (!(payload instanceof ContentChange)) {
+                return -1L;
+            }
+            changedColumns |= ((ContentChange) payload).changedColumns;
+        }
+        return changedColumns;
+    }
+}
@@ -0,0 +1,122 @@
+package co.moonmonkeylabs.realmrecyclerview;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative long values with power of two buckets. Recording doesn't allocate,
+ * so it can be used on the hot paths of the adapter. The bucket of a value v > 0 is the number of
+ * bits of v, the values 0 and below go into bucket 0.
+ */
+public class Histogram {
+
+    private static final int BUCKET_COUNT = 64;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public synchronized void record(long value) {
+        buckets[getBucket(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(buckets.clone(), count, sum, min, max);
+    }
+
+    static int getBucket(long value) {
+        return value <= 0 ? 0 : Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    /**
+     * An immutable copy of the histogram.
+     */
+    public static class Snapshot {
+
+        private final long[] buckets;
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+
+        Snapshot(long[] buckets, long count, long sum, long min, long max) {
+            this.buckets = buckets;
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Returns the smallest value or 0 if nothing has been recorded.
+         */
+        public long getMin() {
+            return count == 0 ? 0 : min;
+        }
+
+        /**
+         * Returns the largest value or 0 if nothing has been recorded.
+         */
+        public long getMax() {
+            return count == 0 ? 0 : max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Returns an upper bound of the percentile, i.e. the upper bound of the bucket it falls
+         * into, capped at the largest value.
+         *
+         * @param percentile the percentile between 0 and 100
+         */
+        public long getPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile: " + percentile);
+            }
+            if (count == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    final long upperBound = i == 0 ? 0 : i >= 63 ? Long.MAX_VALUE : (1L << i) - 1;
+                    return Math.max(getMin(), Math.min(upperBound, max));
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Returns the count of every bucket. Bucket i > 0 holds the values from 2^(i-1) to
+         * 2^i - 1.
+         */
+        public long[] getBucketCounts() {
+            return buckets.clone();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package co.moonmonkeylabs.realmrecyclerview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Decides when to load more rows at one edge of the list. Instead of a fixed number of buffer
+ * items, the request is fired as soon as the rows left until the edge would be scrolled past
+ * within the measured fetch latency at the current scroll velocity. Only one request is in
+ * flight at a time, a finished request for the same item count isn't repeated and failed requests
+ * are retried with an exponential backoff.
+ */
+class LoadMoreController {
+
+    interface Callback {
+        /**
+         * Called to fire the request. Returns false if no request could be fired.
+         */
+        boolean onLoadMore(LoadMoreRequest request);
+
+        /**
+         * Called once the backoff of a failed request has passed, to check the edge again.
+         */
+        void onRetry();
+    }
+
+    // Used until the first fetch has been measured.
+    private static final long DEFAULT_LATENCY_MILLIS = 500;
+    private static final long BASE_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+    private static final float SMOOTHING = 0.3f;
+
+    private final Callback callback;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private int bufferItems;
+    private int maxPredictedItems = 50;
+
+    // Rows per millisecond towards the edge.
+    private float velocity;
+    private int lastEdgeDistance = -1;
+    private long lastScrollTime;
+    private float latencyMillis = DEFAULT_LATENCY_MILLIS;
+    private boolean hasMeasuredLatency;
+
+    private LoadMoreRequest inFlight;
+    private long requestTime;
+    private int requestItemCount;
+    private int finishedItemCount = -1;
+    private int failedAttempts;
+    private long retryTime;
+    private long retryDelay;
+
+    LoadMoreController(Callback callback, int bufferItems) {
+        this.callback = callback;
+        this.bufferItems = bufferItems;
+    }
+
+    void setBufferItems(int bufferItems) {
+        this.bufferItems = bufferItems;
+    }
+
+    void setMaxPredictedItems(int maxPredictedItems) {
+        this.maxPredictedItems = maxPredictedItems;
+    }
+
+    /**
+     * Returns the number of rows before the edge at which the request is fired.
+     */
+    int getThreshold() {
+        final int predicted = (int) Math.ceil(velocity * latencyMillis);
+        return bufferItems + Math.max(0, Math.min(maxPredictedItems, predicted));
+    }
+
+    /**
+     * Updates the velocity and fires the request if the edge is close enough.
+     *
+     * @param edgeDistance the number of rows between the visible rows and the edge
+     * @param itemCount the number of loaded rows
+     */
+    void onScrolled(int edgeDistance, int itemCount) {
+        final long now = SystemClock.uptimeMillis();
+        if (lastEdgeDistance != -1 && now > lastScrollTime) {
+            final float current =
+                    (float) (lastEdgeDistance - edgeDistance) / (now - lastScrollTime);
+            velocity += SMOOTHING * (Math.max(0, current) - velocity);
+        }
+        lastEdgeDistance = edgeDistance;
+        lastScrollTime = now;
+        maybeLoadMore(edgeDistance, itemCount);
+    }
+
+    void onScrollIdle() {
+        velocity = 0;
+        lastEdgeDistance = -1;
+    }
+
+    void maybeLoadMore(int edgeDistance, int itemCount) {
+        if (inFlight != null || itemCount == 0 || itemCount == finishedItemCount) {
+            return;
+        }
+        if (edgeDistance >= getThreshold()) {
+            return;
+        }
+        final long now = SystemClock.uptimeMillis();
+        if (now < retryTime) {
+            return;
+        }
+        final LoadMoreRequest request = new LoadMoreRequest(this, failedAttempts, retryDelay);
+        inFlight = request;
+        requestTime = now;
+        requestItemCount = itemCount;
+        if (!callback.onLoadMore(request)) {
+            inFlight = null;
+        }
+    }
+
+    /**
+     * Completes the request in flight if new rows have been loaded.
+     */
+    void onItemCountChanged(int itemCount) {
+        if (inFlight != null && itemCount > requestItemCount) {
+            complete();
+        }
+        if (itemCount != finishedItemCount) {
+            finishedItemCount = -1;
+        }
+    }
+
+    /**
+     * Drops the request in flight and the failure state.
+     */
+    void reset() {
+        inFlight = null;
+        finishedItemCount = -1;
+        failedAttempts = 0;
+        retryTime = 0;
+        retryDelay = 0;
+        handler.removeCallbacks(retryRunnable);
+    }
+
+    void finish(final LoadMoreRequest request, final boolean failed) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            handler.post(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            finish(request, failed);
+                        }
+                    }
+            );
+            return;
+        }
+        if (request != inFlight) {
+            // Already completed by new rows or superseded by a reset.
+            return;
+        }
+        if (failed) {
+            inFlight = null;
+            failedAttempts++;
+            retryDelay = Math.min(
+                    MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(failedAttempts - 1, 16));
+            retryTime = SystemClock.uptimeMillis() + retryDelay;
+            handler.postDelayed(retryRunnable, retryDelay);
+        } else {
+            complete();
+            // Not repeated until the item count changes.
+            finishedItemCount = requestItemCount;
+        }
+    }
+
+    private void complete() {
+        final long latency = SystemClock.uptimeMillis() - requestTime;
+        if (hasMeasuredLatency) {
+            latencyMillis += SMOOTHING * (latency - latencyMillis);
+        } else {
+            latencyMillis = latency;
+            hasMeasuredLatency = true;
+        }
+        inFlight = null;
+        failedAttempts = 0;
+        retryTime = 0;
+        retryDelay = 0;
+    }
+
+    private final Runnable retryRunnable = new Runnable() {
+        @Override
+        public void run() {
+            callback.onRetry();
+        }
+    };
+}
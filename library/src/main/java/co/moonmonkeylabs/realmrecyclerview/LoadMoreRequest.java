@@ -0,0 +1,42 @@
+package co.moonmonkeylabs.realmrecyclerview;
+
+/**
+ * A load more request handed to the {@link RealmRecyclerView.OnLoadMoreRequestListener}. The
+ * request is completed automatically once new rows show up in the adapter. Call
+ * {@link #complete()} if the load finished without new rows, e.g. at the end of the data, and
+ * {@link #fail()} to retry it with an exponential backoff. Both can be called from any thread.
+ */
+public class LoadMoreRequest {
+
+    private final LoadMoreController controller;
+    private final int attempt;
+    private final long retryDelayMillis;
+
+    LoadMoreRequest(LoadMoreController controller, int attempt, long retryDelayMillis) {
+        this.controller = controller;
+        this.attempt = attempt;
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    /**
+     * Returns the number of previous attempts that failed, 0 for the first attempt.
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    /**
+     * Returns the backoff that was waited for before this retry, 0 for the first attempt.
+     */
+    public long getRetryDelayMillis() {
+        return retryDelayMillis;
+    }
+
+    public void complete() {
+        controller.finish(this, false);
+    }
+
+    public void fail() {
+        controller.finish(this, true);
+    }
+}
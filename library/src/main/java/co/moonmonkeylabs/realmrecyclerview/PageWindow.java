@@ -0,0 +1,178 @@
+package co.moonmonkeylabs.realmrecyclerview;
+
+/**
+ * Bounds the number of pages an infinite list keeps loaded. The loaded rows are split into pages
+ * of pageSize rows, numbered from the start of the data. Once more than maxPages are loaded, the
+ * page at the end that is farthest from the visible rows is handed to the
+ * {@link EvictionCallback}, which removes its rows from the realm. Evicted pages are loaded again
+ * through the load more and load previous listeners once the user scrolls back to them, so both
+ * should be enabled on the {@link RealmRecyclerView}.
+ *
+ * Only the pages at the start and the end are evicted, so the loaded rows stay contiguous. One
+ * page is evicted at a time and the next one only after its rows are gone.
+ */
+public class PageWindow {
+
+    public interface EvictionCallback {
+        /**
+         * Called to remove the rows of the page from the realm.
+         *
+         * @param page the number of the page from the start of the data
+         * @param firstItem the first row of the page
+         * @param lastItem the last row of the page
+         * @param atStart true if the page is at the start of the loaded rows and has to be loaded
+         *                again with load previous, false if it is at the end
+         */
+        void onEvictPage(int page, Object firstItem, Object lastItem, boolean atStart);
+    }
+
+    /**
+     * Provides the loaded rows by their realm index.
+     */
+    interface Rows {
+        int getCount();
+
+        Object get(int index);
+    }
+
+    private final int pageSize;
+    private final int maxPages;
+    private final EvictionCallback callback;
+
+    // The position of the first loaded row from the start of the data.
+    private int firstRow;
+    private int itemCount = -1;
+    private int pendingRows;
+    private boolean pendingAtStart;
+    private boolean isLoadingPrevious;
+
+    public PageWindow(int pageSize, int maxPages, EvictionCallback callback) {
+        if (pageSize <= 0 || maxPages < 2) {
+            throw new IllegalArgumentException(
+                    "pageSize has to be positive and maxPages at least 2");
+        }
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.callback = callback;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    /**
+     * Returns the number of the first loaded page. Load previous has to fetch the page in front
+     * of it.
+     */
+    public int getFirstPage() {
+        return firstRow / pageSize;
+    }
+
+    /**
+     * Returns the number of the last loaded page. Load more has to fetch the page after it.
+     */
+    public int getLastPage() {
+        return (firstRow + Math.max(0, itemCount - 1)) / pageSize;
+    }
+
+    /**
+     * Returns true if pages at the start have been evicted and not loaded again yet.
+     */
+    public boolean hasEvictedStart() {
+        return firstRow > 0;
+    }
+
+    /**
+     * Forgets the evicted pages, e.g. after the results have been replaced.
+     */
+    public void reset() {
+        firstRow = 0;
+        itemCount = -1;
+        pendingRows = 0;
+        isLoadingPrevious = false;
+    }
+
+    /**
+     * Marks that the next rows that are added have been loaded in front of the first row.
+     */
+    void onLoadPrevious() {
+        isLoadingPrevious = true;
+    }
+
+    /**
+     * Moves the first row by the rows that have been evicted at or loaded in front of the start.
+     */
+    void onItemCountChanged(int count) {
+        if (itemCount == -1) {
+            itemCount = count;
+            return;
+        }
+        final int delta = count - itemCount;
+        itemCount = count;
+        if (delta < 0 && pendingRows > 0) {
+            if (pendingAtStart) {
+                firstRow += Math.min(-delta, pendingRows);
+            }
+            pendingRows = Math.max(0, pendingRows + delta);
+        } else if (delta > 0 && isLoadingPrevious) {
+            firstRow = Math.max(0, firstRow - delta);
+            isLoadingPrevious = false;
+        }
+        if (count == 0) {
+            reset();
+        }
+    }
+
+    /**
+     * Evicts a page at the start or the end if too many pages are loaded.
+     *
+     * @param firstVisible the realm index of the first visible row
+     * @param lastVisible the realm index of the last visible row
+     * @param rows the loaded rows
+     * @return true if a page has been evicted
+     */
+    boolean maybeEvict(int firstVisible, int lastVisible, Rows rows) {
+        final int count = rows.getCount();
+        if (pendingRows > 0 || count == 0) {
+            return false;
+        }
+        if (itemCount == -1) {
+            itemCount = count;
+        }
+        final int firstPage = getFirstPage();
+        final int lastPage = (firstRow + count - 1) / pageSize;
+        if (lastPage - firstPage + 1 <= maxPages) {
+            return false;
+        }
+        firstVisible = Math.max(0, Math.min(count - 1, firstVisible));
+        lastVisible = Math.max(firstVisible, Math.min(count - 1, lastVisible));
+        final int startDistance = (firstRow + firstVisible) / pageSize - firstPage;
+        final int endDistance = lastPage - (firstRow + lastVisible) / pageSize;
+        if (startDistance < 1 && endDistance < 1) {
+            // All loaded pages are visible.
+            return false;
+        }
+
+        final boolean atStart = startDistance >= endDistance;
+        final int from;
+        final int to;
+        final int page;
+        if (atStart) {
+            page = firstPage;
+            from = 0;
+            to = Math.min(count, (firstPage + 1) * pageSize - firstRow);
+        } else {
+            page = lastPage;
+            from = Math.max(0, lastPage * pageSize - firstRow);
+            to = count;
+        }
+        pendingRows = to - from;
+        pendingAtStart = atStart;
+        callback.onEvictPage(page, rows.get(from), rows.get(to - 1), atStart);
+        return true;
+    }
+}
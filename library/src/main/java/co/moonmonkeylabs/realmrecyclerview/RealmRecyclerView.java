@@ -14,6 +14,8 @@ import android.view.ViewStub;
 import android.widget.FrameLayout;
 import com.tonicartos.superslim.LayoutManager;
 
+import java.util.concurrent.Executor;
+
 import io.realm.RealmBasedRecyclerViewAdapter;
 
 /**
@@ -32,6 +34,22 @@ public class RealmRecyclerView extends FrameLayout {
         void onLoadMore(Object lastItem);
     }
 
+    public interface OnLoadMoreRequestListener {
+        /**
+         * Called to load the rows after the lastItem. The request tracks the attempts and is
+         * completed automatically once new rows show up, see {@link LoadMoreRequest}.
+         */
+        void onLoadMore(Object lastItem, LoadMoreRequest request);
+    }
+
+    public interface OnLoadPreviousListener {
+        /**
+         * Called to load the rows in front of the firstItem. The request is completed
+         * automatically once new rows show up, see {@link LoadMoreRequest}.
+         */
+        void onLoadPrevious(Object firstItem, LoadMoreRequest request);
+    }
+
     private enum Type {
         LinearLayout,
         Grid,
@@ -44,8 +62,10 @@ public class RealmRecyclerView extends FrameLayout {
     private ViewStub emptyContentContainer;
     private RealmBasedRecyclerViewAdapter adapter;
     private RealmSimpleItemTouchHelperCallback realmSimpleItemTouchHelperCallback;
-    private boolean hasLoadMoreFired;
+    private LoadMoreController loadMoreController;
+    private LoadMoreController loadPreviousController;
     private boolean showShowLoadMore;
+    private boolean showLoadPrevious;
 
     // Attributes
     private boolean isRefreshable;
@@ -55,6 +75,7 @@ public class RealmRecyclerView extends FrameLayout {
     private int gridWidthPx;
     private boolean swipeToDelete;
     private int bufferItems = 3;
+    private int loadPreviousBufferItems;
 
     private StaggeredGridLayoutManager staggeredGridManager;
     private GridLayoutManager gridManager;
@@ -66,6 +87,16 @@ public class RealmRecyclerView extends FrameLayout {
     // Listener
     private OnRefreshListener onRefreshListener;
     private OnLoadMoreListener onLoadMoreListener;
+    private OnLoadMoreRequestListener onLoadMoreRequestListener;
+    private OnLoadPreviousListener onLoadPreviousListener;
+    private PageWindow pageWindow;
+    private Executor preInflateExecutor;
+    private ViewHolderPreInflater preInflater;
+    private BindPrefetcher bindPrefetcher;
+    private int prefetchItemCount;
+    // Same as the RecyclerView.
+    private int itemViewCacheSize = 2;
+    private int scrollState = RecyclerView.SCROLL_STATE_IDLE;
 
     public RealmRecyclerView(Context context) {
         super(context);
@@ -102,6 +133,9 @@ public class RealmRecyclerView extends FrameLayout {
     private void init(Context context, AttributeSet attrs) {
         inflate(context, R.layout.realm_recycler_view, this);
         initAttrs(context, attrs);
+        loadMoreController = new LoadMoreController(loadMoreCallback, bufferItems);
+        loadPreviousController =
+                new LoadMoreController(loadPreviousCallback, loadPreviousBufferItems);
 
         swipeRefreshLayout = (SwipeRefreshLayout) findViewById(R.id.rrv_swipe_refresh_layout);
         recyclerView = (RecyclerView) findViewById(R.id.rrv_recycler_view);
@@ -158,6 +192,10 @@ public class RealmRecyclerView extends FrameLayout {
         }
         recyclerView.setHasFixedSize(true);
 
+        bindPrefetcher = new BindPrefetcher(recyclerView);
+        recyclerView.setViewCacheExtension(bindPrefetcher);
+        setPrefetchItemCount(prefetchItemCount);
+
         recyclerView.addOnScrollListener(
                 new RecyclerView.OnScrollListener() {
                     @Override
@@ -172,11 +210,35 @@ public class RealmRecyclerView extends FrameLayout {
                     @Override
                     public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
                         super.onScrollStateChanged(recyclerView, newState);
+                        scrollState = newState;
+                        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                            loadMoreController.onScrollIdle();
+                            loadPreviousController.onScrollIdle();
+                            maybeEvictPage();
+                        }
+                        if (adapter != null) {
+                            adapter.onScrollStateChanged(newState);
+                        }
                     }
 
                     @Override
                     public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-                        maybeFireLoadMore();
+                        final AdapterMetrics metrics = getMetrics();
+                        final long start = metrics != null ? metrics.start() : 0;
+                        maybeFireLoadMore(true);
+                        maybeFireLoadPrevious(true);
+                        bindPrefetcher.onScrolled(
+                                findFirstVisibleItemPosition(),
+                                findLastVisibleItemPosition(),
+                                recyclerView.getLayoutManager().canScrollVertically() ? dy : dx);
+                        if (adapter != null) {
+                            adapter.onVisibleRangeChanged(
+                                    findFirstVisibleItemPosition(),
+                                    findLastVisibleItemPosition());
+                        }
+                        if (metrics != null) {
+                            metrics.end(AdapterMetrics.Phase.SCROLL, start);
+                        }
                     }
                 }
         );
@@ -216,6 +278,14 @@ public class RealmRecyclerView extends FrameLayout {
         this.onLoadMoreListener = onLoadMoreListener;
     }
 
+    /**
+     * Sets a load more listener that receives the {@link LoadMoreRequest} to report a failed or
+     * empty load. Takes precedence over the {@link OnLoadMoreListener}.
+     */
+    public void setOnLoadMoreRequestListener(OnLoadMoreRequestListener listener) {
+        this.onLoadMoreRequestListener = listener;
+    }
+
     public void enableShowLoadMore() {
         showShowLoadMore = true;
         ((RealmBasedRecyclerViewAdapter) recyclerView.getAdapter()).addLoadMore();
@@ -226,11 +296,159 @@ public class RealmRecyclerView extends FrameLayout {
         ((RealmBasedRecyclerViewAdapter) recyclerView.getAdapter()).removeLoadMore();
     }
 
-    private void maybeFireLoadMore() {
-        if (hasLoadMoreFired) {
+    public void setOnLoadPreviousListener(OnLoadPreviousListener onLoadPreviousListener) {
+        this.onLoadPreviousListener = onLoadPreviousListener;
+    }
+
+    /**
+     * Shows the loading row in front of the rows and fires the {@link OnLoadPreviousListener}
+     * when the user gets close to the start. While it is shown, the visible rows keep their
+     * position when rows are inserted or removed above them. Not supported with
+     * LinearLayoutWithHeaders.
+     */
+    public void enableShowLoadPrevious() {
+        showLoadPrevious = true;
+        ((RealmBasedRecyclerViewAdapter) recyclerView.getAdapter()).addLoadPrevious();
+    }
+
+    public void disableShowLoadPrevious() {
+        showLoadPrevious = false;
+        ((RealmBasedRecyclerViewAdapter) recyclerView.getAdapter()).removeLoadPrevious();
+    }
+
+    private void maybeFireLoadPrevious(boolean scrolled) {
+        if (!showLoadPrevious || adapter == null) {
+            return;
+        }
+        final int firstVisibleItemPosition = findFirstVisibleItemPosition();
+        if (firstVisibleItemPosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+        if (scrolled) {
+            loadPreviousController.onScrolled(
+                    firstVisibleItemPosition, adapter.getLoadedItemCount());
+        } else {
+            loadPreviousController.maybeLoadMore(
+                    firstVisibleItemPosition, adapter.getLoadedItemCount());
+        }
+    }
+
+    private final LoadMoreController.Callback loadPreviousCallback =
+            new LoadMoreController.Callback() {
+                @Override
+                public boolean onLoadMore(LoadMoreRequest request) {
+                    if (onLoadPreviousListener == null) {
+                        return false;
+                    }
+                    if (pageWindow != null) {
+                        pageWindow.onLoadPrevious();
+                    }
+                    onLoadPreviousListener.onLoadPrevious(adapter.getFirstItem(), request);
+                    return true;
+                }
+
+                @Override
+                public void onRetry() {
+                    maybeFireLoadPrevious(false);
+                }
+            };
+
+    /**
+     * Keeps the first visible row at its offset when rows are inserted or removed in front of
+     * it. The adapter position of the row is only updated by the recyclerView after this
+     * observer, so the current update is applied on top.
+     *
+     * @param positionStart the start of the inserted or removed range
+     * @param delta the number of inserted rows or minus the number of removed rows
+     */
+    private void anchorFirstVisibleRow(int positionStart, int delta) {
+        final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        for (int i = 0; i < recyclerView.getChildCount(); i++) {
+            final View child = recyclerView.getChildAt(i);
+            final RecyclerView.ViewHolder holder = recyclerView.getChildViewHolder(child);
+            int position = holder.getAdapterPosition();
+            if (position == RecyclerView.NO_POSITION
+                    || child instanceof LoadMoreListItemView) {
+                continue;
+            }
+            if (delta > 0 && positionStart <= position) {
+                position += delta;
+            } else if (delta < 0 && positionStart - delta <= position) {
+                position += delta;
+            } else if (delta < 0 && positionStart <= position) {
+                // Removed itself, the next row is the anchor.
+                continue;
+            }
+            if (position == holder.getLayoutPosition()) {
+                return;
+            }
+            final int offset = layoutManager.canScrollVertically()
+                    ? layoutManager.getDecoratedTop(child) - recyclerView.getPaddingTop()
+                    : layoutManager.getDecoratedLeft(child) - recyclerView.getPaddingLeft();
+            if (layoutManager instanceof LinearLayoutManager) {
+                ((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(position, offset);
+            } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+                ((StaggeredGridLayoutManager) layoutManager)
+                        .scrollToPositionWithOffset(position, offset);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Bounds the loaded pages of an infinite list. The pages far from the visible rows are
+     * evicted whenever scrolling stops, see {@link PageWindow}.
+     */
+    public void setPageWindow(PageWindow pageWindow) {
+        this.pageWindow = pageWindow;
+        if (pageWindow != null && adapter != null) {
+            pageWindow.onItemCountChanged(adapter.getLoadedItemCount());
+            maybeEvictPage();
+        }
+    }
+
+    public PageWindow getPageWindow() {
+        return pageWindow;
+    }
+
+    private void maybeEvictPage() {
+        if (pageWindow == null || adapter == null
+                || scrollState != RecyclerView.SCROLL_STATE_IDLE) {
+            return;
+        }
+        final int firstVisibleItemPosition = findFirstVisibleItemPosition();
+        if (firstVisibleItemPosition == RecyclerView.NO_POSITION) {
             return;
         }
-        if (!showShowLoadMore) {
+        final int headCount = adapter.getHeadCount();
+        pageWindow.maybeEvict(
+                firstVisibleItemPosition - headCount,
+                findLastVisibleItemPosition() - headCount,
+                loadedRows);
+    }
+
+    private final PageWindow.Rows loadedRows = new PageWindow.Rows() {
+        @Override
+        public int getCount() {
+            return adapter.getLoadedItemCount();
+        }
+
+        @Override
+        public Object get(int index) {
+            return adapter.getLoadedItem(index);
+        }
+    };
+
+    // Evicting changes the realm, so it isn't done while the adapter notifies its observers.
+    private final Runnable evictPageRunnable = new Runnable() {
+        @Override
+        public void run() {
+            maybeEvictPage();
+        }
+    };
+
+    private void maybeFireLoadMore(boolean scrolled) {
+        if (!showShowLoadMore || adapter == null) {
             return;
         }
 
@@ -243,14 +461,34 @@ public class RealmRecyclerView extends FrameLayout {
             return;
         }
 
-        if (firstVisibleItemPosition + visibleItemCount + bufferItems > totalItemCount) {
-            if (onLoadMoreListener != null) {
-                hasLoadMoreFired = true;
-                onLoadMoreListener.onLoadMore(adapter.getLastItem());
-            }
+        final int edgeDistance = totalItemCount - firstVisibleItemPosition - visibleItemCount;
+        if (scrolled) {
+            loadMoreController.onScrolled(edgeDistance, adapter.getLoadedItemCount());
+        } else {
+            loadMoreController.maybeLoadMore(edgeDistance, adapter.getLoadedItemCount());
         }
     }
 
+    private final LoadMoreController.Callback loadMoreCallback =
+            new LoadMoreController.Callback() {
+                @Override
+                public boolean onLoadMore(LoadMoreRequest request) {
+                    if (onLoadMoreRequestListener != null) {
+                        onLoadMoreRequestListener.onLoadMore(adapter.getLastItem(), request);
+                        return true;
+                    } else if (onLoadMoreListener != null) {
+                        onLoadMoreListener.onLoadMore(adapter.getLastItem());
+                        return true;
+                    }
+                    return false;
+                }
+
+                @Override
+                public void onRetry() {
+                    maybeFireLoadMore(false);
+                }
+            };
+
     public int findFirstVisibleItemPosition() {
         switch (type) {
             case LinearLayout:
@@ -271,6 +509,31 @@ public class RealmRecyclerView extends FrameLayout {
         }
     }
 
+    public int findLastVisibleItemPosition() {
+        switch (type) {
+            case LinearLayout:
+                return ((LinearLayoutManager) recyclerView.getLayoutManager())
+                        .findLastVisibleItemPosition();
+            case Grid:
+                return ((GridLayoutManager) recyclerView.getLayoutManager())
+                        .findLastVisibleItemPosition();
+            case LinearLayoutWithHeaders:
+                return ((LayoutManager) recyclerView.getLayoutManager())
+                        .findLastVisibleItemPosition();
+            case StaggeredGridLayout:
+                int[] lastPositions = ((StaggeredGridLayoutManager) recyclerView.getLayoutManager())
+                        .findLastVisibleItemPositions(null);
+                int lastPosition = RecyclerView.NO_POSITION;
+                for (int position : lastPositions) {
+                    lastPosition = Math.max(lastPosition, position);
+                }
+                return lastPosition;
+            default:
+                throw new IllegalStateException("Type of layoutManager unknown." +
+                        "In this case this method needs to be overridden");
+        }
+    }
+
     private void initAttrs(Context context, AttributeSet attrs) {
         TypedArray typedArray =
                 context.obtainStyledAttributes(attrs, R.styleable.RealmRecyclerView);
@@ -288,6 +551,10 @@ public class RealmRecyclerView extends FrameLayout {
                 .getDimensionPixelSize(R.styleable.RealmRecyclerView_rrvGridLayoutItemWidth, -1);
         swipeToDelete =
                 typedArray.getBoolean(R.styleable.RealmRecyclerView_rrvSwipeToDelete, false);
+        loadPreviousBufferItems = Math.max(0, typedArray.getInt(
+                R.styleable.RealmRecyclerView_rrvLoadPreviousBufferItems, bufferItems));
+        prefetchItemCount = Math.max(0, typedArray.getInt(
+                R.styleable.RealmRecyclerView_rrvPrefetchItemCount, 0));
         typedArray.recycle();
     }
 
@@ -310,6 +577,16 @@ public class RealmRecyclerView extends FrameLayout {
             realmSimpleItemTouchHelperCallback.setAdapter(adapter);
         }
 
+        if (preInflater != null) {
+            preInflater.cancel();
+            preInflater = null;
+        }
+        if (adapter != null && adapter.getPreInflateCounts().size() > 0) {
+            preInflater = new ViewHolderPreInflater(
+                    recyclerView, adapter, adapter.getPreInflateCounts(), preInflateExecutor);
+            preInflater.start();
+        }
+
         if (adapter != null) {
             adapter.registerAdapterDataObserver(
                     new RecyclerView.AdapterDataObserver() {
@@ -325,12 +602,18 @@ public class RealmRecyclerView extends FrameLayout {
                         @Override
                         public void onItemRangeRemoved(int positionStart, int itemCount) {
                             super.onItemRangeRemoved(positionStart, itemCount);
+                            if (showLoadPrevious) {
+                                anchorFirstVisibleRow(positionStart, -itemCount);
+                            }
                             update();
                         }
 
                         @Override
                         public void onItemRangeInserted(int positionStart, int itemCount) {
                             super.onItemRangeInserted(positionStart, itemCount);
+                            if (showLoadPrevious) {
+                                anchorFirstVisibleRow(positionStart, itemCount);
+                            }
                             update();
                         }
 
@@ -348,6 +631,14 @@ public class RealmRecyclerView extends FrameLayout {
 
                         private void update() {
                             updateEmptyContentContainerVisibility(adapter);
+                            loadMoreController.onItemCountChanged(adapter.getLoadedItemCount());
+                            loadPreviousController.onItemCountChanged(
+                                    adapter.getLoadedItemCount());
+                            if (pageWindow != null) {
+                                pageWindow.onItemCountChanged(adapter.getLoadedItemCount());
+                                removeCallbacks(evictPageRunnable);
+                                post(evictPageRunnable);
+                            }
                         }
                     }
             );
@@ -355,6 +646,15 @@ public class RealmRecyclerView extends FrameLayout {
         }
     }
 
+    /**
+     * Returns the metrics of the adapter, see
+     * {@link RealmBasedRecyclerViewAdapter#setMetrics(AdapterMetrics)}. The scroll handling of
+     * this view is recorded in them as well.
+     */
+    public AdapterMetrics getMetrics() {
+        return adapter != null ? adapter.getMetrics() : null;
+    }
+
     private void updateEmptyContentContainerVisibility(RecyclerView.Adapter adapter) {
         if (emptyViewId == 0) {
             return;
@@ -363,11 +663,63 @@ public class RealmRecyclerView extends FrameLayout {
                 adapter.getItemCount() == 0 ? View.VISIBLE : View.GONE);
     }
 
+    /**
+     * Sets the executor on which the view holders of
+     * {@link RealmBasedRecyclerViewAdapter#setPreInflateCount(int, int)} are created. They are
+     * put into the pool on the main thread. Only set it if the layouts of the adapter can be
+     * inflated off the main thread with
+     * {@link RealmBasedRecyclerViewAdapter#getLayoutInflater()}. The header, load more, footer and
+     * load previous view holders are still created on the main thread. Pass null to create them
+     * all whenever the main thread is idle (default). Has to be set before the adapter.
+     */
+    public void setPreInflateExecutor(Executor preInflateExecutor) {
+        this.preInflateExecutor = preInflateExecutor;
+    }
+
+    /**
+     * Sets the number of rows that are bound ahead in the scroll direction while the main thread
+     * is idle, for every layout type. The view cache grows by the same number of rows to keep
+     * them. 0 turns it off (default).
+     */
+    public void setPrefetchItemCount(int prefetchItemCount) {
+        this.prefetchItemCount = Math.max(0, prefetchItemCount);
+        bindPrefetcher.setPrefetchItemCount(this.prefetchItemCount);
+        recyclerView.setItemViewCacheSize(itemViewCacheSize + this.prefetchItemCount);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        bindPrefetcher.cancel();
+        if (preInflater != null) {
+            preInflater.cancel();
+            preInflater = null;
+        }
+    }
+
     //
     // Expose public RecyclerView methods to the RealmRecyclerView
     //
+    /**
+     * Shares the pool, and with it the pre-inflated view holders, with other RealmRecyclerViews
+     * that use the same view types, e.g. a {@link SharedRecycledViewPool}. The rows of a linear
+     * or grid layout are then put into the pool when this view is detached.
+     */
+    public void setRecycledViewPool(RecyclerView.RecycledViewPool pool) {
+        recyclerView.setRecycledViewPool(pool);
+        if (recyclerView.getLayoutManager() instanceof LinearLayoutManager) {
+            ((LinearLayoutManager) recyclerView.getLayoutManager())
+                    .setRecycleChildrenOnDetach(true);
+        }
+    }
+
+    public RecyclerView.RecycledViewPool getRecycledViewPool() {
+        return recyclerView.getRecycledViewPool();
+    }
+
     public void setItemViewCacheSize(int size) {
-        recyclerView.setItemViewCacheSize(size);
+        itemViewCacheSize = size;
+        recyclerView.setItemViewCacheSize(size + prefetchItemCount);
     }
 
     public void smoothScrollToPosition(int position) {
@@ -400,16 +752,49 @@ public class RealmRecyclerView extends FrameLayout {
         swipeRefreshLayout.setRefreshing(refreshing);
     }
 
+    /**
+     * Drops the load more request in flight. Not needed anymore if new rows are loaded, the
+     * request is then completed automatically.
+     */
     public void resetHasLoadMoreFired() {
-        hasLoadMoreFired = false;
+        loadMoreController.reset();
     }
 
     //
     // Expose method to change the preloaded items
     //
+
+    /**
+     * Sets the minimum number of rows left before load more is fired. While scrolling, the rows
+     * that are expected to scroll by during a fetch are added on top.
+     */
     public void setBufferItems(int bufferItems){
         if (bufferItems <= 0) bufferItems = 0;
         this.bufferItems = bufferItems;
+        loadMoreController.setBufferItems(bufferItems);
+    }
+
+    /**
+     * Drops the load previous request in flight.
+     */
+    public void resetHasLoadPreviousFired() {
+        loadPreviousController.reset();
+    }
+
+    /**
+     * Sets the minimum number of rows left before load previous is fired.
+     */
+    public void setLoadPreviousBufferItems(int loadPreviousBufferItems) {
+        this.loadPreviousBufferItems = Math.max(0, loadPreviousBufferItems);
+        loadPreviousController.setBufferItems(this.loadPreviousBufferItems);
+    }
+
+    /**
+     * Caps the rows added to the bufferItems based on the scroll velocity and fetch latency.
+     */
+    public void setMaxPredictedBufferItems(int maxPredictedItems) {
+        loadMoreController.setMaxPredictedItems(Math.max(0, maxPredictedItems));
+        loadPreviousController.setMaxPredictedItems(Math.max(0, maxPredictedItems));
     }
 
     private SwipeRefreshLayout.OnRefreshListener recyclerViewRefreshListener =
@@ -0,0 +1,33 @@
+package co.moonmonkeylabs.realmrecyclerview;
+
+/**
+ * Reads the ids, content columns and headers of the rows of a list. The adapter reads the
+ * RealmResults through it and the benchmarks an in-memory stand-in, so both take their snapshots
+ * with {@link RowSnapshots} and update the {@link SectionIndex} with the same loops.
+ */
+public interface RowReader {
+
+    int size();
+
+    /**
+     * Returns the id of the row. String values are reduced to their
+     * {@link co.moonmonkeylabs.realmrecyclerview.diff.Fingerprint}.
+     */
+    long getRowId(int position);
+
+    /**
+     * Reads the fingerprints of the content columns of the row into the values.
+     */
+    void readContent(int position, long[] values);
+
+    /**
+     * Returns the fingerprint of the raw header value of the row, so that rows whose header
+     * column changed are detected as well.
+     */
+    long getHeaderKey(int position);
+
+    /**
+     * Reads the headers of the rows from start on into the headers array.
+     */
+    void readHeaders(int start, String[] headers);
+}
@@ -0,0 +1,94 @@
+package co.moonmonkeylabs.realmrecyclerview;
+
+import java.util.Arrays;
+
+import co.moonmonkeylabs.realmrecyclerview.diff.Fingerprint;
+import co.moonmonkeylabs.realmrecyclerview.diff.IdSnapshot;
+
+/**
+ * Fills {@link IdSnapshot}s from the rows of a {@link RowReader}.
+ */
+public final class RowSnapshots {
+
+    // Mixed into the fingerprint of a header to keep it apart from the String keys.
+    private static final long HEADER_ID_SEED = 0x5bd1e995L;
+
+    private RowSnapshots() {
+    }
+
+    /**
+     * Returns the id of a section header. It differs from the id of a row whose String key
+     * equals the header, so the diff and the stable ids never take the header for that row.
+     */
+    public static long getHeaderId(String header) {
+        return Fingerprint.mix(HEADER_ID_SEED, Fingerprint.of(header));
+    }
+
+    /**
+     * Fills the rowKeys with the id of every row together with the key of its header.
+     */
+    public static IdSnapshot readRowKeys(RowReader rows, IdSnapshot rowKeys) {
+        final int size = rows.size();
+        rowKeys.reset(size);
+        for (int i = 0; i < size; i++) {
+            rowKeys.add(rows.getRowId(i), rows.getHeaderKey(i));
+        }
+        return rowKeys;
+    }
+
+    /**
+     * Adds the rows from start to end to the snapshot.
+     *
+     * @param rowKeys the row keys to take the ids from or null to read them
+     * @param values the buffer for the content columns or null if the rows have none
+     */
+    public static void addRows(
+            RowReader rows,
+            IdSnapshot snapshot,
+            int start,
+            int end,
+            IdSnapshot rowKeys,
+            long[] values) {
+        for (int i = start; i < end; i++) {
+            final long id = rowKeys != null ? rowKeys.get(i) : rows.getRowId(i);
+            if (values != null) {
+                rows.readContent(i, values);
+                snapshot.add(id, values, values.length);
+            } else {
+                snapshot.add(id);
+            }
+        }
+    }
+
+    /**
+     * Adds the headers and rows of the sections to the snapshot. The ids of the headers are
+     * created with {@link #getHeaderId(String)}.
+     *
+     * @param rowKeys the row keys to take the ids from or null to read them
+     * @param values the buffer for the content columns or null if the rows have none
+     */
+    public static void addSections(
+            RowReader rows,
+            SectionIndex sectionIndex,
+            IdSnapshot snapshot,
+            IdSnapshot rowKeys,
+            long[] values) {
+        for (int section = 0; section < sectionIndex.getSectionCount(); section++) {
+            final long headerId = getHeaderId(sectionIndex.getHeader(section));
+            if (values != null) {
+                // A header has no content, the values are only used as padding.
+                Arrays.fill(values, 0);
+                snapshot.add(headerId, values, values.length);
+            } else {
+                snapshot.add(headerId);
+            }
+            addRows(
+                    rows,
+                    snapshot,
+                    sectionIndex.getSectionStart(section),
+                    sectionIndex.getSectionEnd(section),
+                    rowKeys,
+                    values);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package co.moonmonkeylabs.realmrecyclerview;
+
+import java.util.Arrays;
+
+import co.moonmonkeylabs.realmrecyclerview.diff.IdSnapshot;
+
+/**
+ * Maps the adapter positions of a list with section headers to realm indexes. Instead of an
+ * object per row, only the realm index of the first row of every section and the header of every
+ * section are stored. Positions are resolved with a binary search over the sections.
+ *
+ * The adapter position of the header of section s is sectionStarts[s] + s and the realm row r of
+ * section s is at position r + s + 1.
+ */
+public class SectionIndex {
+
+    private int[] sectionStarts = new int[8];
+    private String[] headers = new String[8];
+    private int sectionCount;
+    private int rowCount;
+    // The section of the last lookup. Scroll driven lookups mostly hit the same section again.
+    private int lastSection;
+
+    public void clear() {
+        Arrays.fill(headers, 0, sectionCount, null);
+        sectionCount = 0;
+        rowCount = 0;
+        lastSection = 0;
+    }
+
+    /**
+     * Returns the number of adapter positions, i.e. the realm rows plus the headers.
+     */
+    public int size() {
+        return rowCount + sectionCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getSectionCount() {
+        return sectionCount;
+    }
+
+    public String getHeader(int section) {
+        checkSection(section);
+        return headers[section];
+    }
+
+    /**
+     * Returns the adapter position of the header of the section.
+     */
+    public int getSectionPosition(int section) {
+        checkSection(section);
+        return sectionStarts[section] + section;
+    }
+
+    /**
+     * Returns the section the adapter position belongs to. Positions past the end belong to the
+     * last section. Runs in O(1) if the position is in the section of the previous lookup and in
+     * O(log S) otherwise.
+     */
+    public int getSection(int position) {
+        if (position < 0 || sectionCount == 0) {
+            throw new IndexOutOfBoundsException(
+                    "Position: " + position + ", Size: " + size());
+        }
+        final int cached = lastSection;
+        if (cached < sectionCount
+                && sectionStarts[cached] + cached <= position
+                && (cached == sectionCount - 1
+                        || position < sectionStarts[cached + 1] + cached + 1)) {
+            return cached;
+        }
+        int low = 0;
+        int high = sectionCount - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (sectionStarts[mid] + mid <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        lastSection = low;
+        return low;
+    }
+
+    public boolean isHeader(int position) {
+        final int section = getSection(position);
+        return sectionStarts[section] + section == position;
+    }
+
+    /**
+     * Returns the realm index of the row at the adapter position or -1 if it is a header.
+     */
+    public int getRealmIndex(int position) {
+        final int section = getSection(position);
+        final int headerPosition = sectionStarts[section] + section;
+        return position == headerPosition ? -1 : position - section - 1;
+    }
+
+    /**
+     * Returns the adapter position of the realm row.
+     */
+    public int getPosition(int realmIndex) {
+        return realmIndex + getSectionOfRow(realmIndex) + 1;
+    }
+
+    /**
+     * Returns the section the realm row belongs to.
+     */
+    public int getSectionOfRow(int realmIndex) {
+        if (realmIndex < 0 || realmIndex >= rowCount) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + realmIndex + ", Rows: " + rowCount);
+        }
+        int low = 0;
+        int high = sectionCount - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (sectionStarts[mid] <= realmIndex) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the realm index of the first row of the section.
+     */
+    public int getSectionStart(int section) {
+        checkSection(section);
+        return sectionStarts[section];
+    }
+
+    /**
+     * Returns the realm index after the last row of the section.
+     */
+    public int getSectionEnd(int section) {
+        checkSection(section);
+        return section == sectionCount - 1 ? rowCount : sectionStarts[section + 1];
+    }
+
+    /**
+     * Builds the sections from scratch from the headers of all rows.
+     */
+    public void rebuild(RowReader rows) {
+        final String[] rowHeaders = new String[rows.size()];
+        rows.readHeaders(0, rowHeaders);
+        clear();
+        update(0, 0, rowHeaders);
+    }
+
+    /**
+     * Updates the sections for the rows between the common start and end of the old and new row
+     * keys, see {@link RowSnapshots#readRowKeys(RowReader, IdSnapshot)}. Only the headers of these
+     * rows are read again, the sections in front of them are kept and the sections behind them
+     * are shifted.
+     *
+     * @param rows the rows of the newRowKeys
+     */
+    public void update(IdSnapshot oldRowKeys, IdSnapshot newRowKeys, RowReader rows) {
+        final int oldSize = oldRowKeys.size();
+        final int newSize = newRowKeys.size();
+        final int minSize = Math.min(oldSize, newSize);
+        int prefix = 0;
+        while (prefix < minSize && oldRowKeys.rowEquals(prefix, newRowKeys, prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < minSize - prefix && oldRowKeys.rowEquals(
+                oldSize - 1 - suffix, newRowKeys, newSize - 1 - suffix)) {
+            suffix++;
+        }
+        if (prefix == oldSize && prefix == newSize) {
+            return;
+        }
+
+        final String[] windowHeaders = new String[newSize - suffix - prefix];
+        rows.readHeaders(prefix, windowHeaders);
+        update(prefix, oldSize - suffix, windowHeaders);
+    }
+
+    /**
+     * Replaces the realm rows from prefix to oldEnd with the rows of the windowHeaders. The rows
+     * in front of prefix and from oldEnd on are unchanged and keep their headers. Only the
+     * sections around the window are evaluated again, the sections behind it are shifted.
+     *
+     * @param prefix the realm index of the first changed row
+     * @param oldEnd the old realm index after the last changed row
+     * @param windowHeaders the headers of the new rows between prefix and the new end
+     */
+    public void update(int prefix, int oldEnd, String[] windowHeaders) {
+        if (prefix < 0 || prefix > oldEnd || oldEnd > rowCount) {
+            throw new IndexOutOfBoundsException(
+                    "Window: " + prefix + " - " + oldEnd + ", Rows: " + rowCount);
+        }
+        final int newEnd = prefix + windowHeaders.length;
+        final int delta = newEnd - oldEnd;
+
+        // The sections up to the one of the last unchanged row in front are kept.
+        final int keep = prefix == 0 ? 0 : getSectionOfRow(prefix - 1) + 1;
+        // Behind the window, every section after the one of the first unchanged row is kept.
+        final boolean hasEnd = oldEnd < rowCount;
+        final int endSection = hasEnd ? getSectionOfRow(oldEnd) : sectionCount;
+        final String endHeader = hasEnd ? headers[endSection] : null;
+        final int tail = hasEnd ? endSection + 1 : sectionCount;
+        final int tailCount = sectionCount - tail;
+
+        boolean hasLast = keep > 0;
+        String lastHeader = hasLast ? headers[keep - 1] : null;
+        int middle = 0;
+        for (String header : windowHeaders) {
+            if (!hasLast || !equals(lastHeader, header)) {
+                middle++;
+            }
+            hasLast = true;
+            lastHeader = header;
+        }
+        final boolean endStartsSection = hasEnd && (!hasLast || !equals(lastHeader, endHeader));
+        if (endStartsSection) {
+            middle++;
+        }
+
+        final int newSectionCount = keep + middle + tailCount;
+        ensureCapacity(newSectionCount);
+        System.arraycopy(sectionStarts, tail, sectionStarts, keep + middle, tailCount);
+        System.arraycopy(headers, tail, headers, keep + middle, tailCount);
+        for (int i = keep + middle; i < newSectionCount; i++) {
+            sectionStarts[i] += delta;
+        }
+
+        int section = keep;
+        hasLast = keep > 0;
+        lastHeader = hasLast ? headers[keep - 1] : null;
+        for (int i = 0; i < windowHeaders.length; i++) {
+            final String header = windowHeaders[i];
+            if (!hasLast || !equals(lastHeader, header)) {
+                sectionStarts[section] = prefix + i;
+                headers[section] = header;
+                section++;
+            }
+            hasLast = true;
+            lastHeader = header;
+        }
+        if (endStartsSection) {
+            sectionStarts[section] = newEnd;
+            headers[section] = endHeader;
+        }
+
+        for (int i = newSectionCount; i < sectionCount; i++) {
+            headers[i] = null;
+        }
+        sectionCount = newSectionCount;
+        rowCount += delta;
+        lastSection = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > sectionStarts.length) {
+            final int newCapacity = Math.max(capacity, sectionStarts.length * 2);
+            sectionStarts = Arrays.copyOf(sectionStarts, newCapacity);
+            headers = Arrays.copyOf(headers, newCapacity);
+        }
+    }
+
+    private void checkSection(int section) {
+        if (section < 0 || section >= sectionCount) {
+            throw new IndexOutOfBoundsException(
+                    "Section: " + section + ", Sections: " + sectionCount);
+        }
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
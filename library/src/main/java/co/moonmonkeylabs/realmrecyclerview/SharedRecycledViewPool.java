@@ -0,0 +1,151 @@
+package co.moonmonkeylabs.realmrecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+
+/**
+ * A {@link RecyclerView.RecycledViewPool} to share between several {@link RealmRecyclerView}s
+ * with the same view types, see {@link RealmRecyclerView#setRecycledViewPool}. Besides the limit
+ * per view type, the pool holds at most maxSize view holders in total. It counts the hits and
+ * misses per view type, i.e. whether a view holder could be reused or had to be created.
+ *
+ * The fixed view types of the {@link io.realm.RealmBasedRecyclerViewAdapter} are the header
+ * (100), load more (101), footer (102) and load previous (103) rows.
+ */
+public class SharedRecycledViewPool extends RecyclerView.RecycledViewPool {
+
+    // The size of the pool for a view type unless set otherwise, same as the RecycledViewPool.
+    static final int DEFAULT_MAX_SCRAP = 5;
+
+    private final int maxSize;
+    private final SparseIntArray limits = new SparseIntArray();
+    private final SparseIntArray sizes = new SparseIntArray();
+    private final SparseIntArray hits = new SparseIntArray();
+    private final SparseIntArray misses = new SparseIntArray();
+    private int size;
+    private int hitCount;
+    private int missCount;
+    private int dropCount;
+
+    /**
+     * @param maxSize the maximum number of view holders in the pool over all view types
+     */
+    public SharedRecycledViewPool(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize has to be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of view holders in the pool.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getSize(int viewType) {
+        return sizes.get(viewType);
+    }
+
+    public int getMaxRecycledViews(int viewType) {
+        return limits.get(viewType, DEFAULT_MAX_SCRAP);
+    }
+
+    @Override
+    public void setMaxRecycledViews(int viewType, int max) {
+        limits.put(viewType, max);
+        super.setMaxRecycledViews(viewType, max);
+        // The RecycledViewPool drops the view holders above the new limit.
+        sizes.put(viewType, Math.min(sizes.get(viewType), max));
+        updateSize();
+    }
+
+    @Override
+    public RecyclerView.ViewHolder getRecycledView(int viewType) {
+        final RecyclerView.ViewHolder holder = super.getRecycledView(viewType);
+        if (holder != null) {
+            sizes.put(viewType, sizes.get(viewType) - 1);
+            size--;
+            hits.put(viewType, hits.get(viewType) + 1);
+            hitCount++;
+        } else {
+            misses.put(viewType, misses.get(viewType) + 1);
+            missCount++;
+        }
+        return holder;
+    }
+
+    /**
+     * Adds the view holder unless its view type or the whole pool is full. A view holder that
+     * isn't added is dropped.
+     */
+    @Override
+    public void putRecycledView(RecyclerView.ViewHolder holder) {
+        final int viewType = holder.getItemViewType();
+        final int typeSize = sizes.get(viewType);
+        if (size >= maxSize || typeSize >= getMaxRecycledViews(viewType)) {
+            dropCount++;
+            return;
+        }
+        super.putRecycledView(holder);
+        sizes.put(viewType, typeSize + 1);
+        size++;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        sizes.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the number of times a view holder of the view type could be reused.
+     */
+    public int getHitCount(int viewType) {
+        return hits.get(viewType);
+    }
+
+    /**
+     * Returns the number of times no view holder of the view type was left, so a new one had to
+     * be created.
+     */
+    public int getMissCount(int viewType) {
+        return misses.get(viewType);
+    }
+
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    public int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of view holders that were dropped because the pool was full.
+     */
+    public int getDropCount() {
+        return dropCount;
+    }
+
+    public void resetCounts() {
+        hits.clear();
+        misses.clear();
+        hitCount = 0;
+        missCount = 0;
+        dropCount = 0;
+    }
+
+    private void updateSize() {
+        size = 0;
+        for (int i = 0; i < sizes.size(); i++) {
+            size += sizes.valueAt(i);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package co.moonmonkeylabs.realmrecyclerview;
+
+/**
+ * Controls how bursts of Realm change notifications are merged by the
+ * {@link io.realm.RealmBasedRecyclerViewAdapter}. All changes of a burst are dispatched as a
+ * single update against the latest results.
+ */
+public class UpdateCoalescingPolicy {
+
+    private final long minIntervalMillis;
+    private final long debounceMillis;
+    private final boolean deferWhileScrolling;
+
+    /**
+     * @param minIntervalMillis the minimum time between two dispatched updates. It also caps how
+     *                          long a burst that doesn't pause is debounced.
+     * @param debounceMillis how long no further change has to arrive before an update is
+     *                       dispatched
+     * @param deferWhileScrolling if true, no update is dispatched until the
+     *                            {@link RealmRecyclerView} is idle again
+     */
+    public UpdateCoalescingPolicy(
+            long minIntervalMillis,
+            long debounceMillis,
+            boolean deferWhileScrolling) {
+        if (minIntervalMillis < 0 || debounceMillis < 0) {
+            throw new IllegalArgumentException("The intervals can't be negative");
+        }
+        this.minIntervalMillis = minIntervalMillis;
+        this.debounceMillis = debounceMillis;
+        this.deferWhileScrolling = deferWhileScrolling;
+    }
+
+    public long getMinIntervalMillis() {
+        return minIntervalMillis;
+    }
+
+    public long getDebounceMillis() {
+        return debounceMillis;
+    }
+
+    public boolean isDeferWhileScrolling() {
+        return deferWhileScrolling;
+    }
+
+    /**
+     * Returns the time at which a pending burst should be dispatched.
+     *
+     * @param now the current time
+     * @param firstChangeTime the time of the first change of the burst
+     * @param lastDispatchTime the time of the last dispatched update
+     */
+    public long getDispatchTime(long now, long firstChangeTime, long lastDispatchTime) {
+        long dispatchTime = now + debounceMillis;
+        if (minIntervalMillis > 0) {
+            dispatchTime = Math.min(dispatchTime, firstChangeTime + minIntervalMillis);
+            dispatchTime = Math.max(dispatchTime, lastDispatchTime + minIntervalMillis);
+        }
+        return dispatchTime;
+    }
+}
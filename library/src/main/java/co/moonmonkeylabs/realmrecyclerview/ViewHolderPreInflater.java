@@ -0,0 +1,138 @@
+package co.moonmonkeylabs.realmrecyclerview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+import io.realm.RealmBasedRecyclerViewAdapter;
+
+/**
+ * Fills the {@link RecyclerView.RecycledViewPool} with view holders before they are needed, so
+ * the first fast scroll doesn't inflate them on the UI thread. Without an executor, one view
+ * holder is created whenever the main thread is idle. With an executor, the view holders of the
+ * realm view types are created on it and one of them is put into the pool whenever the main
+ * thread is idle. The view holders of the adapter's own view types are still created on the main
+ * thread.
+ */
+class ViewHolderPreInflater implements MessageQueue.IdleHandler {
+
+    private final RecyclerView recyclerView;
+    private final RealmBasedRecyclerViewAdapter adapter;
+    private final Executor executor;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // The view types and the number of view holders that are left to create.
+    private final SparseIntArray remaining;
+    private final ConcurrentLinkedQueue<RecyclerView.ViewHolder> inflated =
+            new ConcurrentLinkedQueue<>();
+    private volatile boolean cancelled;
+    private volatile boolean inflating;
+
+    /**
+     * @param targets the number of view holders per view type
+     * @param executor the executor to create the realm view holders on or null to create them on
+     *                 the main thread. The layouts of the adapter have to support inflation off
+     *                 the main thread.
+     */
+    ViewHolderPreInflater(
+            RecyclerView recyclerView,
+            RealmBasedRecyclerViewAdapter adapter,
+            SparseIntArray targets,
+            Executor executor) {
+        this.recyclerView = recyclerView;
+        this.adapter = adapter;
+        this.executor = executor;
+        this.remaining = targets.clone();
+    }
+
+    void start() {
+        final RecyclerView.RecycledViewPool pool = recyclerView.getRecycledViewPool();
+        for (int i = 0; i < remaining.size(); i++) {
+            final int viewType = remaining.keyAt(i);
+            // The limit of a shared pool is only ever raised.
+            final int max = pool instanceof SharedRecycledViewPool
+                    ? ((SharedRecycledViewPool) pool).getMaxRecycledViews(viewType)
+                    : SharedRecycledViewPool.DEFAULT_MAX_SCRAP;
+            pool.setMaxRecycledViews(viewType, Math.max(max, remaining.valueAt(i)));
+        }
+        if (executor != null) {
+            inflating = true;
+            executor.execute(inflateRunnable);
+        }
+        Looper.myQueue().addIdleHandler(this);
+    }
+
+    void cancel() {
+        cancelled = true;
+        inflated.clear();
+        Looper.myQueue().removeIdleHandler(this);
+    }
+
+    /**
+     * Puts a single view holder into the pool, to keep the work per idle frame short. Returns
+     * false once all view holders are in the pool, which removes this handler.
+     */
+    @Override
+    public boolean queueIdle() {
+        if (cancelled) {
+            return false;
+        }
+        RecyclerView.ViewHolder holder = executor != null ? inflated.poll() : null;
+        if (holder == null) {
+            final int viewType = nextViewType(false);
+            if (viewType != -1) {
+                holder = adapter.createViewHolder(recyclerView, viewType);
+            }
+        }
+        if (holder == null) {
+            return inflating || !inflated.isEmpty();
+        }
+        recyclerView.getRecycledViewPool().putRecycledView(holder);
+        return true;
+    }
+
+    /**
+     * Returns the next view type to create a view holder for or -1 if none are left. With an
+     * executor, the view types are split between the executor and the main thread.
+     */
+    private int nextViewType(boolean offMainThread) {
+        synchronized (remaining) {
+            for (int i = 0; i < remaining.size(); i++) {
+                final int viewType = remaining.keyAt(i);
+                final int count = remaining.valueAt(i);
+                if (count > 0 && (executor == null
+                        || adapter.canCreateViewHolderOffMainThread(viewType) == offMainThread)) {
+                    remaining.put(viewType, count - 1);
+                    return viewType;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private final Runnable wakeUpRunnable = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private final Runnable inflateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                int viewType;
+                while (!cancelled && (viewType = nextViewType(true)) != -1) {
+                    inflated.add(adapter.createViewHolderOffMainThread(recyclerView, viewType));
+                    // The idle handler is only called after a message has been handled.
+                    handler.post(wakeUpRunnable);
+                }
+            } finally {
+                inflating = false;
+            }
+        }
+    };
+}
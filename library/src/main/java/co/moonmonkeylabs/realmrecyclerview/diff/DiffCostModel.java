@@ -0,0 +1,60 @@
+package co.moonmonkeylabs.realmrecyclerview.diff;
+
+/**
+ * Decides how a {@link DiffResult} is dispatched so that a huge update never costs more than
+ * refreshing the list. Every notification is processed by the RecyclerView in the same frame, so
+ * a result whose cost exceeds the maxCost is collapsed into a single changed range plus the
+ * difference in size, see {@link DiffResult#collapse(int)}. If the collapsed range covers more
+ * than the maxCollapsedFraction of the list, the list is refreshed instead.
+ */
+public class DiffCostModel {
+
+    private final int maxCost;
+    private final float maxCollapsedFraction;
+
+    /**
+     * @param maxCost the highest cost that is dispatched as is, see {@link #getCost(DiffResult)}
+     * @param maxCollapsedFraction the largest fraction of the list that is rebound as a collapsed
+     *                             range instead of being refreshed
+     */
+    public DiffCostModel(int maxCost, float maxCollapsedFraction) {
+        if (maxCost < 0) {
+            throw new IllegalArgumentException("maxCost can't be negative");
+        }
+        if (maxCollapsedFraction < 0 || maxCollapsedFraction > 1) {
+            throw new IllegalArgumentException("maxCollapsedFraction has to be between 0 and 1");
+        }
+        this.maxCost = maxCost;
+        this.maxCollapsedFraction = maxCollapsedFraction;
+    }
+
+    /**
+     * Returns the result to dispatch: the result itself, its collapsed form or
+     * {@link DiffResult#REFRESH}.
+     *
+     * @param oldSize the item count before the updates
+     * @param newSize the item count after the updates
+     */
+    public DiffResult apply(DiffResult result, int oldSize, int newSize) {
+        if (result.isRefresh() || getCost(result) <= maxCost) {
+            return result;
+        }
+        final DiffResult collapsed = result.collapse(oldSize);
+        int rebound = 0;
+        for (int i = 0; i < collapsed.getUpdateCount(); i++) {
+            rebound += collapsed.getCount(i);
+        }
+        if (rebound > maxCollapsedFraction * Math.max(oldSize, newSize)) {
+            return DiffResult.REFRESH;
+        }
+        return collapsed;
+    }
+
+    /**
+     * Returns the cost of dispatching the result as is. By default every notification costs 1,
+     * since the RecyclerView has to reorder and apply each of them against its pending updates.
+     */
+    protected int getCost(DiffResult result) {
+        return result.getUpdateCount();
+    }
+}
@@ -0,0 +1,271 @@
+package co.moonmonkeylabs.realmrecyclerview.diff;
+
+/**
+ * The ordered list of updates calculated by a {@link DiffStrategy}. The updates are stored in a
+ * flat int array to keep large results cheap.
+ */
+public class DiffResult {
+
+    public static final int INSERT = 0;
+    public static final int REMOVE = 1;
+    public static final int MOVE = 2;
+    public static final int CHANGE = 3;
+
+    private static final int STRIDE = 3;
+
+    /**
+     * Result for ids that can't be diffed. The whole list has to be refreshed instead.
+     */
+    public static final DiffResult REFRESH = new DiffResult(true);
+
+    private final boolean refresh;
+    private int[] updates;
+    private int size;
+
+    public DiffResult() {
+        this(false);
+    }
+
+    private DiffResult(boolean refresh) {
+        this.refresh = refresh;
+        this.updates = new int[refresh ? 0 : STRIDE * 4];
+    }
+
+    /**
+     * Appends an update. Consecutive inserts, removes and changes that extend each other are
+     * merged into a single range.
+     *
+     * @param type one of {@link #INSERT}, {@link #REMOVE}, {@link #MOVE} or {@link #CHANGE}
+     * @param position the position or, for moves, the from position
+     * @param countOrToPosition the item count or, for moves, the to position
+     */
+    public void add(int type, int position, int countOrToPosition) {
+        if (refresh) {
+            throw new IllegalStateException("The refresh result can't be modified");
+        }
+        if (size > 0 && type != MOVE) {
+            final int last = (size - 1) * STRIDE;
+            if (updates[last] == type) {
+                final int lastPosition = updates[last + 1];
+                final int lastCount = updates[last + 2];
+                if (type == REMOVE && position == lastPosition) {
+                    updates[last + 2] = lastCount + countOrToPosition;
+                    return;
+                } else if (type == REMOVE && position + countOrToPosition == lastPosition) {
+                    updates[last + 1] = position;
+                    updates[last + 2] = lastCount + countOrToPosition;
+                    return;
+                } else if (type != REMOVE && lastPosition + lastCount == position) {
+                    updates[last + 2] = lastCount + countOrToPosition;
+                    return;
+                }
+            }
+        }
+        if ((size + 1) * STRIDE > updates.length) {
+            int[] grown = new int[updates.length * 2];
+            System.arraycopy(updates, 0, grown, 0, size * STRIDE);
+            updates = grown;
+        }
+        final int offset = size * STRIDE;
+        updates[offset] = type;
+        updates[offset + 1] = position;
+        updates[offset + 2] = countOrToPosition;
+        size++;
+    }
+
+    /**
+     * Appends all updates of the other result with their positions shifted by the offset.
+     */
+    public void addAll(DiffResult other, int offset) {
+        if (other.refresh) {
+            throw new IllegalArgumentException("The refresh result can't be added");
+        }
+        for (int i = 0; i < other.size; i++) {
+            final int type = other.getType(i);
+            add(type,
+                    other.getPosition(i) + offset,
+                    type == MOVE ? other.getCount(i) + offset : other.getCount(i));
+        }
+    }
+
+    /**
+     * Returns true if the ids couldn't be diffed and the whole list needs to be refreshed.
+     */
+    public boolean isRefresh() {
+        return refresh;
+    }
+
+    public boolean isEmpty() {
+        return !refresh && size == 0;
+    }
+
+    public int getUpdateCount() {
+        return size;
+    }
+
+    public int getType(int index) {
+        return updates[index * STRIDE];
+    }
+
+    public int getPosition(int index) {
+        return updates[index * STRIDE + 1];
+    }
+
+    /**
+     * Returns the item count of the update or, for moves, the to position.
+     */
+    public int getCount(int index) {
+        return updates[index * STRIDE + 2];
+    }
+
+    /**
+     * Returns the updates collapsed into a single change of the rows between the first and the
+     * last updated position, followed by one insert or remove for the difference in size. The
+     * rows in front of and behind the updated range keep their positions.
+     *
+     * @param oldSize the item count before the updates
+     */
+    public DiffResult collapse(int oldSize) {
+        if (refresh) {
+            return this;
+        }
+        int currentSize = oldSize;
+        int start = Integer.MAX_VALUE;
+        // The number of rows at the end that haven't been touched by any update.
+        int suffix = oldSize;
+        for (int i = 0; i < size; i++) {
+            final int type = getType(i);
+            final int position = getPosition(i);
+            final int count = getCount(i);
+            if (type == MOVE) {
+                start = Math.min(start, Math.min(position, count));
+                suffix = Math.min(suffix, currentSize - Math.max(position, count) - 1);
+            } else {
+                start = Math.min(start, position);
+                if (type == INSERT) {
+                    suffix = Math.min(suffix, currentSize - position);
+                    currentSize += count;
+                } else {
+                    suffix = Math.min(suffix, currentSize - position - count);
+                    if (type == REMOVE) {
+                        currentSize -= count;
+                    }
+                }
+            }
+        }
+
+        final DiffResult collapsed = new DiffResult();
+        if (size == 0) {
+            return collapsed;
+        }
+        final int oldCount = oldSize - start - suffix;
+        final int newCount = currentSize - start - suffix;
+        final int changed = Math.min(oldCount, newCount);
+        if (changed > 0) {
+            collapsed.add(CHANGE, start, changed);
+        }
+        if (newCount > oldCount) {
+            collapsed.add(INSERT, start + changed, newCount - oldCount);
+        } else if (oldCount > newCount) {
+            collapsed.add(REMOVE, start + changed, oldCount - newCount);
+        }
+        return collapsed;
+    }
+
+    /**
+     * Returns the position a row at the position has after the updates from startIndex
+     * (inclusive) to endIndex (exclusive) have been applied or -1 if the row is removed by them.
+     */
+    public int getPositionAfter(int position, int startIndex, int endIndex) {
+        for (int i = startIndex; i < endIndex && position != -1; i++) {
+            final int updatePosition = getPosition(i);
+            final int count = getCount(i);
+            switch (getType(i)) {
+                case INSERT:
+                    if (position >= updatePosition) {
+                        position += count;
+                    }
+                    break;
+                case REMOVE:
+                    if (position >= updatePosition + count) {
+                        position -= count;
+                    } else if (position >= updatePosition) {
+                        position = -1;
+                    }
+                    break;
+                case MOVE:
+                    position = movePosition(position, updatePosition, count);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Returns the position a row at the position had before the updates from startIndex
+     * (inclusive) to endIndex (exclusive) were applied or -1 if the row was inserted by them.
+     */
+    public int getPositionBefore(int position, int startIndex, int endIndex) {
+        for (int i = endIndex - 1; i >= startIndex && position != -1; i--) {
+            final int updatePosition = getPosition(i);
+            final int count = getCount(i);
+            switch (getType(i)) {
+                case INSERT:
+                    if (position >= updatePosition + count) {
+                        position -= count;
+                    } else if (position >= updatePosition) {
+                        position = -1;
+                    }
+                    break;
+                case REMOVE:
+                    if (position >= updatePosition) {
+                        position += count;
+                    }
+                    break;
+                case MOVE:
+                    position = movePosition(position, count, updatePosition);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return position;
+    }
+
+    private static int movePosition(int position, int fromPosition, int toPosition) {
+        if (position == fromPosition) {
+            return toPosition;
+        }
+        if (position > fromPosition) {
+            position--;
+        }
+        if (position >= toPosition) {
+            position++;
+        }
+        return position;
+    }
+
+    public void dispatchUpdatesTo(UpdateCallback callback) {
+        for (int i = 0; i < size; i++) {
+            final int offset = i * STRIDE;
+            switch (updates[offset]) {
+                case INSERT:
+                    callback.onInserted(updates[offset + 1], updates[offset + 2]);
+                    break;
+                case REMOVE:
+                    callback.onRemoved(updates[offset + 1], updates[offset + 2]);
+                    break;
+                case MOVE:
+                    callback.onMoved(updates[offset + 1], updates[offset + 2]);
+                    break;
+                case CHANGE:
+                    callback.onChanged(updates[offset + 1], updates[offset + 2]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown update type");
+            }
+        }
+    }
+}
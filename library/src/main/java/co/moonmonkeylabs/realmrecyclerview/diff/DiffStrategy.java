@@ -0,0 +1,10 @@
+package co.moonmonkeylabs.realmrecyclerview.diff;
+
+/**
+ * Calculates the updates that turn one snapshot of row ids into another. Implementations must
+ * not touch any Realm objects since they might be called on a background thread.
+ */
+public interface DiffStrategy {
+
+    DiffResult calculateDiff(IdSnapshot oldIds, IdSnapshot newIds);
+}
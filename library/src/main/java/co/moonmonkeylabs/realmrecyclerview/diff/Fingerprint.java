@@ -0,0 +1,49 @@
+package co.moonmonkeylabs.realmrecyclerview.diff;
+
+/**
+ * 64-bit hashes used to turn String ids and column values into primitive ids.
+ */
+public final class Fingerprint {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long NULL_FINGERPRINT = 0x9e3779b97f4a7c15L;
+
+    private Fingerprint() {
+    }
+
+    public static long of(String value) {
+        if (value == null) {
+            return NULL_FINGERPRINT;
+        }
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return fmix(hash ^ value.length());
+    }
+
+    public static long of(long value) {
+        return fmix(value);
+    }
+
+    /**
+     * Combines two fingerprints. The order of the arguments matters.
+     */
+    public static long mix(long first, long second) {
+        return fmix(first * FNV_PRIME + second);
+    }
+
+    /**
+     * The murmur3 finalizer, spreads every input bit over the whole hash.
+     */
+    private static long fmix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,245 @@
+package co.moonmonkeylabs.realmrecyclerview.diff;
+
+import java.util.Arrays;
+
+/**
+ * The row ids of the adapter at one point in time, stored as primitive longs. String ids are
+ * stored as their {@link Fingerprint}. Optionally, each row also carries a content fingerprint
+ * that tells whether a row with the same id has changed, and a fingerprint per content column
+ * that tells which columns have changed. A snapshot can be cleared and refilled to avoid
+ * allocating a new one for every change notification.
+ *
+ * A snapshot can also cover only a window of a larger list, see {@link #setWindow(int, int)}.
+ */
+public class IdSnapshot {
+
+    private long[] ids;
+    private long[] contents;
+    private boolean hasContents;
+    private long[] columnContents;
+    private int columnCount;
+    private int size;
+    private int offset;
+    private int totalSize = -1;
+    // The bytes of the arrays allocated since the last takeAllocatedBytes.
+    private long allocatedBytes;
+
+    public IdSnapshot() {
+        this(16);
+    }
+
+    public IdSnapshot(int capacity) {
+        ids = allocate(Math.max(capacity, 1));
+    }
+
+    /**
+     * Clears the snapshot and makes sure it can hold the given number of ids without growing.
+     */
+    public void reset(int capacity) {
+        size = 0;
+        offset = 0;
+        totalSize = -1;
+        hasContents = false;
+        columnCount = 0;
+        if (ids.length < capacity) {
+            ids = allocate(capacity);
+            contents = null;
+            columnContents = null;
+        }
+    }
+
+    public void add(long id) {
+        if (size == ids.length) {
+            ids = grow(ids, size * 2);
+        }
+        ids[size++] = id;
+    }
+
+    /**
+     * Adds a row together with its content fingerprint. Either all or none of the rows of a
+     * snapshot should have a content fingerprint.
+     */
+    public void add(long id, long content) {
+        if (contents == null || contents.length < ids.length) {
+            contents = contents == null ? allocate(ids.length) : grow(contents, ids.length);
+        }
+        if (size == ids.length) {
+            ids = grow(ids, size * 2);
+            contents = grow(contents, size * 2);
+        }
+        contents[size] = content;
+        ids[size++] = id;
+        hasContents = true;
+    }
+
+    /**
+     * Adds a row together with the fingerprints of its content columns. The content fingerprint
+     * of the row is mixed from them. All rows of a snapshot have to have the same number of
+     * columns.
+     *
+     * @param columns the column fingerprints, only the first columnCount entries are read
+     */
+    public void add(long id, long[] columns, int columnCount) {
+        if (size > 0 && columnCount != this.columnCount) {
+            throw new IllegalArgumentException(
+                    "Columns: " + columnCount + ", Expected: " + this.columnCount);
+        }
+        this.columnCount = columnCount;
+        final int capacity = ids.length * columnCount;
+        if (columnContents == null || columnContents.length < capacity) {
+            columnContents = columnContents == null
+                    ? allocate(capacity) : grow(columnContents, capacity);
+        }
+        if (size == ids.length) {
+            columnContents = grow(columnContents, size * 2 * columnCount);
+        }
+        long content = 0;
+        for (int i = 0; i < columnCount; i++) {
+            columnContents[size * columnCount + i] = columns[i];
+            content = Fingerprint.mix(content, columns[i]);
+        }
+        add(id, content);
+    }
+
+    /**
+     * Returns the bytes of the arrays this snapshot allocated or grew since the previous call,
+     * and starts counting again. A recycled snapshot that doesn't grow reports 0.
+     */
+    public long takeAllocatedBytes() {
+        final long bytes = allocatedBytes;
+        allocatedBytes = 0;
+        return bytes;
+    }
+
+    private long[] allocate(int length) {
+        allocatedBytes += 8L * length;
+        return new long[length];
+    }
+
+    private long[] grow(long[] array, int length) {
+        allocatedBytes += 8L * length;
+        return Arrays.copyOf(array, length);
+    }
+
+    /**
+     * Returns the number of content columns per row, 0 if the rows have no column fingerprints.
+     */
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Returns a bit mask of the content columns that differ between the rows at the two indexes,
+     * with bit i set for column i. All bits are set if either snapshot has no column
+     * fingerprints or they have a different number of columns.
+     */
+    public long getChangedColumns(int index, IdSnapshot other, int otherIndex) {
+        if (columnCount == 0 || columnCount != other.columnCount) {
+            return -1L;
+        }
+        long changed = 0;
+        for (int i = 0; i < columnCount; i++) {
+            if (columnContents[index * columnCount + i]
+                    != other.columnContents[otherIndex * columnCount + i]) {
+                changed |= 1L << i;
+            }
+        }
+        return changed;
+    }
+
+    public long get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return ids[index];
+    }
+
+    public long getContent(int index) {
+        if (index >= size || !hasContents) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return contents[index];
+    }
+
+    public boolean hasContents() {
+        return hasContents;
+    }
+
+    /**
+     * Returns whether the rows at the two indexes have the same id and content.
+     */
+    public boolean rowEquals(int index, IdSnapshot other, int otherIndex) {
+        if (ids[index] != other.ids[otherIndex]) {
+            return false;
+        }
+        return !hasContents || !other.hasContents
+                || contents[index] == other.contents[otherIndex];
+    }
+
+    /**
+     * Returns a new snapshot with the rows from start (inclusive) to end (exclusive).
+     */
+    public IdSnapshot subSnapshot(int start, int end) {
+        final IdSnapshot snapshot = new IdSnapshot(end - start);
+        final long[] columns = new long[columnCount];
+        for (int i = start; i < end; i++) {
+            if (columnCount > 0) {
+                System.arraycopy(columnContents, i * columnCount, columns, 0, columnCount);
+                snapshot.add(ids[i], columns, columnCount);
+            } else if (hasContents) {
+                snapshot.add(ids[i], contents[i]);
+            } else {
+                snapshot.add(ids[i]);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Marks the snapshot as a window of a larger list.
+     *
+     * @param offset the index of the first row of the snapshot in the whole list
+     * @param totalSize the size of the whole list
+     */
+    public void setWindow(int offset, int totalSize) {
+        this.offset = offset;
+        this.totalSize = totalSize;
+    }
+
+    /**
+     * Returns the index of the first row of the snapshot in the whole list.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the size of the whole list the snapshot was taken of.
+     */
+    public int getTotalSize() {
+        return totalSize == -1 ? size : totalSize;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the backing array. Only the first {@link #size()} entries are valid.
+     */
+    public long[] array() {
+        return ids;
+    }
+
+    /**
+     * Returns the backing array of the content fingerprints or null if there are none. Only the
+     * first {@link #size()} entries are valid.
+     */
+    public long[] contentArray() {
+        return hasContents ? contents : null;
+    }
+}
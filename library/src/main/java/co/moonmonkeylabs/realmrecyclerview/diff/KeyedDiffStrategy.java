@@ -0,0 +1,298 @@
+package co.moonmonkeylabs.realmrecyclerview.diff;
+
+/**
+ * {@link DiffStrategy} for lists of unique ids such as primary keys. The ids are matched with an
+ * open addressing hash table of primitive longs and the rows that have to move are found via the
+ * longest increasing subsequence of the kept rows, so it runs in O(N log N) and re-sorts are
+ * reported as moves instead of removes and inserts. Kept rows whose content fingerprint differs
+ * are reported as changes.
+ *
+ * If either list contains a duplicate id, the diff is delegated to the fallback strategy.
+ */
+public class KeyedDiffStrategy implements DiffStrategy {
+
+    private final DiffStrategy fallback;
+
+    public KeyedDiffStrategy() {
+        this(new MyersDiffStrategy());
+    }
+
+    public KeyedDiffStrategy(DiffStrategy fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public DiffResult calculateDiff(IdSnapshot oldIds, IdSnapshot newIds) {
+        final int oldSize = oldIds.size();
+        final int newSize = newIds.size();
+        final long[] oldArray = oldIds.array();
+        final long[] newArray = newIds.array();
+        final LongIntMap oldPositions = new LongIntMap(oldSize);
+        for (int i = 0; i < oldSize; i++) {
+            if (!oldPositions.putIfAbsent(oldArray[i], i)) {
+                return fallbackDiff(oldIds, newIds);
+            }
+        }
+
+        final int[] newToOld = new int[newSize];
+        final boolean[] matched = new boolean[oldSize];
+        for (int i = 0; i < newSize; i++) {
+            final int oldPosition = oldPositions.get(newArray[i]);
+            if (oldPosition == -1) {
+                newToOld[i] = -1;
+            } else if (matched[oldPosition]) {
+                return fallbackDiff(oldIds, newIds);
+            } else {
+                matched[oldPosition] = true;
+                newToOld[i] = oldPosition;
+            }
+        }
+        final DiffResult result = calculateDiff(oldSize, newToOld, matched);
+        if (oldIds.hasContents() && newIds.hasContents()) {
+            addChanges(result, newToOld, oldIds.contentArray(), newIds.contentArray());
+        }
+        return result;
+    }
+
+    private DiffResult fallbackDiff(IdSnapshot oldIds, IdSnapshot newIds) {
+        return fallback == null ? DiffResult.REFRESH : fallback.calculateDiff(oldIds, newIds);
+    }
+
+    /**
+     * Builds the updates from the matching of the two lists.
+     *
+     * @param oldSize the size of the old list
+     * @param newToOld the old position of each new row or -1 if it has been inserted
+     * @param matched whether each old row is still present in the new list
+     */
+    static DiffResult calculateDiff(int oldSize, int[] newToOld, boolean[] matched) {
+        final DiffResult result = new DiffResult();
+        final int newSize = newToOld.length;
+
+        // Removes, back to front so that the old positions stay valid. At the same time, the kept
+        // rows get their index within the kept rows.
+        int keptCount = 0;
+        final int[] keptIndex = new int[oldSize];
+        for (int i = 0; i < oldSize; i++) {
+            if (matched[i]) {
+                keptIndex[i] = keptCount++;
+            }
+        }
+        for (int i = oldSize - 1; i >= 0; i--) {
+            if (!matched[i]) {
+                result.add(DiffResult.REMOVE, i, 1);
+            }
+        }
+
+        // The kept rows in new order, expressed as their index in old order.
+        final int[] sequence = new int[keptCount];
+        int k = 0;
+        for (int i = 0; i < newSize; i++) {
+            if (newToOld[i] != -1) {
+                sequence[k++] = keptIndex[newToOld[i]];
+            }
+        }
+        addMoves(result, sequence);
+
+        // Inserts, front to back so that each lands on its new position.
+        for (int i = 0; i < newSize; i++) {
+            if (newToOld[i] == -1) {
+                result.add(DiffResult.INSERT, i, 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the changes of the kept rows, in new positions. They have to be added last.
+     */
+    private static void addChanges(
+            DiffResult result, int[] newToOld, long[] oldContents, long[] newContents) {
+        for (int i = 0; i < newToOld.length; i++) {
+            if (newToOld[i] != -1 && oldContents[newToOld[i]] != newContents[i]) {
+                result.add(DiffResult.CHANGE, i, 1);
+            }
+        }
+    }
+
+    /**
+     * Adds the moves that sort the kept rows into their new order. Rows on the longest increasing
+     * subsequence stay put and every other row is moved right behind its new predecessor.
+     */
+    private static void addMoves(DiffResult result, int[] sequence) {
+        final int count = sequence.length;
+        final boolean[] stays = longestIncreasingSubsequence(sequence);
+
+        // Every row gets an ordering key. Rows that stay keep (oldIndex + 1) * (count + 1) and a
+        // moved row gets the key of the staying row it follows plus its offset within the run of
+        // moved rows behind it. The keys of the moved rows are created in ascending order.
+        final long stride = count + 1;
+        final long[] movedKeys = new long[count];
+        int movedCount = 0;
+        long anchorKey = 0;
+        int runOffset = 0;
+        for (int i = 0; i < count; i++) {
+            if (stays[i]) {
+                anchorKey = (sequence[i] + 1) * stride;
+                runOffset = 0;
+            } else {
+                movedKeys[movedCount++] = anchorKey + (++runOffset);
+            }
+        }
+        if (movedCount == 0) {
+            return;
+        }
+
+        // Maps the keys to slots: the original keys and the moved keys merged in order.
+        final int[] originalSlot = new int[count];
+        final int[] movedSlot = new int[movedCount];
+        int o = 0;
+        int m = 0;
+        int slot = 0;
+        while (o < count || m < movedCount) {
+            if (m == movedCount
+                    || (o < count && (o + 1) * stride < movedKeys[m])) {
+                originalSlot[o++] = slot++;
+            } else {
+                movedSlot[m++] = slot++;
+            }
+        }
+
+        final FenwickTree present = new FenwickTree(slot);
+        for (int i = 0; i < count; i++) {
+            present.add(originalSlot[i], 1);
+        }
+        m = 0;
+        for (int i = 0; i < count; i++) {
+            if (stays[i]) {
+                continue;
+            }
+            final int from = originalSlot[sequence[i]];
+            final int to = movedSlot[m++];
+            final int fromPosition = present.prefixSum(from);
+            present.add(from, -1);
+            final int toPosition = present.prefixSum(to);
+            present.add(to, 1);
+            if (fromPosition != toPosition) {
+                result.add(DiffResult.MOVE, fromPosition, toPosition);
+            }
+        }
+    }
+
+    /**
+     * Returns which elements of the sequence are part of one of its longest increasing
+     * subsequences, in O(N log N).
+     */
+    static boolean[] longestIncreasingSubsequence(int[] sequence) {
+        final int count = sequence.length;
+        final int[] tails = new int[count];
+        final int[] previous = new int[count];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (sequence[tails[mid]] < sequence[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        final boolean[] result = new boolean[count];
+        for (int i = length > 0 ? tails[length - 1] : -1; i != -1; i = previous[i]) {
+            result[i] = true;
+        }
+        return result;
+    }
+
+    /**
+     * Binary indexed tree used to look up the current position of a slot.
+     */
+    private static class FenwickTree {
+
+        private final int[] tree;
+
+        FenwickTree(int size) {
+            tree = new int[size + 1];
+        }
+
+        void add(int index, int delta) {
+            for (int i = index + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        /**
+         * Returns the sum of the values of all slots before the index.
+         */
+        int prefixSum(int index) {
+            int sum = 0;
+            for (int i = index; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Minimal open addressing hash map from long ids to non-negative positions.
+     */
+    private static class LongIntMap {
+
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+
+        LongIntMap(int expectedSize) {
+            int capacity = 2;
+            while (capacity < expectedSize * 2) {
+                capacity <<= 1;
+            }
+            keys = new long[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        /**
+         * Returns false if the key is already mapped.
+         */
+        boolean putIfAbsent(long key, int value) {
+            int index = indexOf(key);
+            while (values[index] != 0) {
+                if (keys[index] == key) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            // Values are stored shifted by one so that zero marks a free slot.
+            values[index] = value + 1;
+            return true;
+        }
+
+        /**
+         * Returns the value of the key or -1 if it isn't mapped.
+         */
+        int get(long key) {
+            int index = indexOf(key);
+            while (values[index] != 0) {
+                if (keys[index] == key) {
+                    return values[index] - 1;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        private int indexOf(long key) {
+            return (int) Fingerprint.of(key) & mask;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package co.moonmonkeylabs.realmrecyclerview.diff;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import difflib.Delta;
+import difflib.DiffUtils;
+import difflib.Patch;
+
+/**
+ * {@link DiffStrategy} backed by the Myers diff of java-diff-utils. It doesn't require the ids to
+ * be unique but it is O(N*D) and can't detect moves. Content fingerprints are mixed into the ids,
+ * so a changed row is reported as a change or a remove and insert.
+ */
+public class MyersDiffStrategy implements DiffStrategy {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DiffResult calculateDiff(IdSnapshot oldIds, IdSnapshot newIds) {
+        final Patch patch = DiffUtils.diff(toList(oldIds), toList(newIds));
+        final List<Delta> deltas = patch.getDeltas();
+        final DiffResult result = new DiffResult();
+        // The deltas are applied back to front so that the original positions stay valid.
+        for (int i = deltas.size() - 1; i >= 0; i--) {
+            final Delta delta = deltas.get(i);
+            final int position = delta.getOriginal().getPosition();
+            final int originalSize = delta.getOriginal().size();
+            final int revisedSize = delta.getRevised().size();
+            if (delta.getType() == Delta.TYPE.INSERT) {
+                result.add(DiffResult.INSERT, position, revisedSize);
+            } else if (delta.getType() == Delta.TYPE.DELETE) {
+                result.add(DiffResult.REMOVE, position, originalSize);
+            } else if (originalSize == revisedSize) {
+                result.add(DiffResult.CHANGE, position, revisedSize);
+            } else {
+                result.add(DiffResult.REMOVE, position, originalSize);
+                result.add(DiffResult.INSERT, position, revisedSize);
+            }
+        }
+        return result;
+    }
+
+    private static List<Long> toList(IdSnapshot ids) {
+        final List<Long> list = new ArrayList<>(ids.size());
+        final long[] array = ids.array();
+        final long[] contents = ids.contentArray();
+        for (int i = 0; i < ids.size(); i++) {
+            list.add(contents == null ? array[i] : Fingerprint.mix(array[i], contents[i]));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,60 @@
+package co.moonmonkeylabs.realmrecyclerview.diff;
+
+/**
+ * {@link DiffStrategy} that strips the rows both snapshots have in common at the start and at the
+ * end before diffing. Most Realm changes touch a single range, such as a page appended at the
+ * end or a row inserted in the middle. Those are turned into a single insert or remove range
+ * without running the delegate at all. Otherwise only the changed window is passed on.
+ */
+public class TrimmingDiffStrategy implements DiffStrategy {
+
+    private final DiffStrategy delegate;
+
+    public TrimmingDiffStrategy(DiffStrategy delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate cannot be null");
+        }
+        this.delegate = delegate;
+    }
+
+    @Override
+    public DiffResult calculateDiff(IdSnapshot oldIds, IdSnapshot newIds) {
+        final int oldSize = oldIds.size();
+        final int newSize = newIds.size();
+        final int minSize = Math.min(oldSize, newSize);
+
+        int prefix = 0;
+        while (prefix < minSize && oldIds.rowEquals(prefix, newIds, prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < minSize - prefix
+                && oldIds.rowEquals(oldSize - 1 - suffix, newIds, newSize - 1 - suffix)) {
+            suffix++;
+        }
+
+        final int oldEnd = oldSize - suffix;
+        final int newEnd = newSize - suffix;
+        final DiffResult result = new DiffResult();
+        if (prefix == oldEnd && prefix == newEnd) {
+            return result;
+        } else if (prefix == oldEnd) {
+            result.add(DiffResult.INSERT, prefix, newEnd - prefix);
+            return result;
+        } else if (prefix == newEnd) {
+            result.add(DiffResult.REMOVE, prefix, oldEnd - prefix);
+            return result;
+        } else if (prefix == 0 && suffix == 0) {
+            return delegate.calculateDiff(oldIds, newIds);
+        }
+
+        final DiffResult windowResult = delegate.calculateDiff(
+                oldIds.subSnapshot(prefix, oldEnd),
+                newIds.subSnapshot(prefix, newEnd));
+        if (windowResult.isRefresh()) {
+            return windowResult;
+        }
+        result.addAll(windowResult, prefix);
+        return result;
+    }
+}
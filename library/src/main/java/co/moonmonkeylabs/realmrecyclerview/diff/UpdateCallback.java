@@ -0,0 +1,17 @@
+package co.moonmonkeylabs.realmrecyclerview.diff;
+
+/**
+ * Receives the updates of a {@link DiffResult}. The positions follow the same semantics as the
+ * RecyclerView.Adapter notify methods, i.e. each update is relative to the list after all
+ * previous updates have been applied.
+ */
+public interface UpdateCallback {
+
+    void onInserted(int position, int count);
+
+    void onRemoved(int position, int count);
+
+    void onMoved(int fromPosition, int toPosition);
+
+    void onChanged(int position, int count);
+}
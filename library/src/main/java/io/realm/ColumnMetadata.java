@@ -0,0 +1,73 @@
+package io.realm;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.realm.internal.Table;
+import io.realm.internal.TableOrView;
+
+/**
+ * The column indexes and types of a model class, resolved once per schema version and shared by
+ * all adapters of the class. The indexes only change with a migration, which requires a new
+ * schema version.
+ */
+class ColumnMetadata {
+
+    // Keyed by the path of the realm and the name of the table.
+    private static final Map<String, ColumnMetadata> cache = new HashMap<>();
+
+    private final long schemaVersion;
+    private final long primaryKeyIndex;
+    private final Map<String, Long> columnIndexes;
+    private final RealmFieldType[] columnTypes;
+
+    private ColumnMetadata(Table table, long schemaVersion) {
+        this.schemaVersion = schemaVersion;
+        primaryKeyIndex = table.getPrimaryKey();
+        final int columnCount = (int) table.getColumnCount();
+        columnIndexes = new HashMap<>(columnCount * 2);
+        columnTypes = new RealmFieldType[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnIndexes.put(table.getColumnName(i), (long) i);
+            columnTypes[i] = table.getColumnType(i);
+        }
+    }
+
+    /**
+     * Returns the metadata of the class of the results, reading it from the table if it isn't
+     * cached for the current schema version yet.
+     */
+    static ColumnMetadata of(RealmResults<?> results) {
+        final RealmConfiguration configuration = results.realm.getConfiguration();
+        final Table table = results.getTableOrView().getTable();
+        final String key = configuration.getPath() + '#' + table.getName();
+        final long schemaVersion = configuration.getSchemaVersion();
+        synchronized (cache) {
+            ColumnMetadata metadata = cache.get(key);
+            if (metadata == null || metadata.schemaVersion != schemaVersion) {
+                metadata = new ColumnMetadata(table, schemaVersion);
+                cache.put(key, metadata);
+            }
+            return metadata;
+        }
+    }
+
+    /**
+     * Returns the index of the primary key column or {@link TableOrView#NO_MATCH}.
+     */
+    long getPrimaryKeyIndex() {
+        return primaryKeyIndex;
+    }
+
+    /**
+     * Returns the index of the column or {@link TableOrView#NO_MATCH}.
+     */
+    long getColumnIndex(String columnName) {
+        final Long columnIndex = columnIndexes.get(columnName);
+        return columnIndex == null ? TableOrView.NO_MATCH : columnIndex;
+    }
+
+    RealmFieldType getColumnType(long columnIndex) {
+        return columnTypes[(int) columnIndex];
+    }
+}
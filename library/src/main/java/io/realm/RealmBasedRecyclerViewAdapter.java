@@ -18,8 +18,11 @@
 package io.realm;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.v7.widget.RecyclerView;
-import android.text.TextUtils;
+import android.util.SparseIntArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -28,18 +31,30 @@ import android.widget.TextView;
 import com.tonicartos.superslim.GridSLM;
 import com.tonicartos.superslim.LinearSLM;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Executor;
 
+import co.moonmonkeylabs.realmrecyclerview.AdapterMetrics;
+import co.moonmonkeylabs.realmrecyclerview.ContentChange;
 import co.moonmonkeylabs.realmrecyclerview.LoadMoreListItemView;
 import co.moonmonkeylabs.realmrecyclerview.R;
 import co.moonmonkeylabs.realmrecyclerview.RealmRecyclerView;
-import difflib.Chunk;
-import difflib.Delta;
-import difflib.DiffUtils;
-import difflib.Patch;
-import io.realm.internal.RealmObjectProxy;
-import io.realm.internal.Row;
+import co.moonmonkeylabs.realmrecyclerview.RowReader;
+import co.moonmonkeylabs.realmrecyclerview.RowSnapshots;
+import co.moonmonkeylabs.realmrecyclerview.SectionIndex;
+import co.moonmonkeylabs.realmrecyclerview.UpdateCoalescingPolicy;
+import co.moonmonkeylabs.realmrecyclerview.diff.DiffCostModel;
+import co.moonmonkeylabs.realmrecyclerview.diff.DiffResult;
+import co.moonmonkeylabs.realmrecyclerview.diff.DiffStrategy;
+import co.moonmonkeylabs.realmrecyclerview.diff.Fingerprint;
+import co.moonmonkeylabs.realmrecyclerview.diff.IdSnapshot;
+import co.moonmonkeylabs.realmrecyclerview.diff.KeyedDiffStrategy;
+import co.moonmonkeylabs.realmrecyclerview.diff.TrimmingDiffStrategy;
+import co.moonmonkeylabs.realmrecyclerview.diff.UpdateCallback;
 import io.realm.internal.TableOrView;
 
 /**
@@ -73,21 +88,58 @@ public abstract class RealmBasedRecyclerViewAdapter
         }
     }
 
-    private static final List<Long> EMPTY_LIST = new ArrayList<>(0);
+    /**
+     * Payload of the change notifications for rows whose animateContentColumns changed, if the
+     * changed columns aren't known. Otherwise the payload is a {@link ContentChange} with the
+     * changed columns.
+     */
+    public static final Object PAYLOAD_CONTENT_CHANGED = ContentChange.ALL_COLUMNS;
+
+    // The synthetic stable ids of the extra rows. Realm keys this small are not expected.
+    private static final long LOAD_PREVIOUS_ID = Long.MIN_VALUE;
+    private static final long LOAD_MORE_ID = Long.MIN_VALUE + 1;
+    private static final long FOOTER_ID = Long.MIN_VALUE + 2;
+
+    private static final int UNKNOWN_WINDOW_SHIFT = Integer.MIN_VALUE;
+
+    // The maximum number of updates for which the changed columns of a row are looked up.
+    private static final int MAX_CONTENT_CHANGE_UPDATES = 64;
+
+    /**
+     * Payload of the rows whose section starts at a different position. Only their section
+     * layout params are updated, they aren't bound again.
+     */
+    private static final Object PAYLOAD_SECTION_CHANGED = new Object();
+
+    /**
+     * Payload of the rows that were bound from results whose change hadn't been dispatched yet.
+     * They are bound again completely, without the change animation.
+     */
+    private static final Object PAYLOAD_REBIND = new Object();
+
+    // The maximum number of rows bound before a change is dispatched that are rebound one by one.
+    private static final int MAX_STALE_ROWS = 256;
 
     private Object loadMoreItem;
     private Object footerItem;
+    private Object loadPreviousItem;
 
     protected final int HEADER_VIEW_TYPE = 100;
     private final int LOAD_MORE_VIEW_TYPE = 101;
     private final int FOOTER_VIEW_TYPE = 102;
+    private final int LOAD_PREVIOUS_VIEW_TYPE = 103;
 
     private Context context;
     protected LayoutInflater inflater;
+    // The clone of the inflater for a thread that pre-inflates view holders.
+    private final ThreadLocal<LayoutInflater> threadInflater = new ThreadLocal<>();
     protected RealmResults<T> realmResults;
-    protected List ids;
+    protected IdSnapshot ids = new IdSnapshot();
+    private IdSnapshot spareIds;
 
-    private List<RowWrapper> rowWrappers;
+    private final SectionIndex sectionIndex = new SectionIndex();
+    private IdSnapshot realmRowKeys;
+    private IdSnapshot spareRowKeys;
 
     private RealmChangeListener<RealmResults<T>> listener;
     private boolean animateResults;
@@ -98,6 +150,47 @@ public abstract class RealmBasedRecyclerViewAdapter
     private RealmFieldType animatePrimaryIdType;
     private long animateExtraColumnIndex;
     private RealmFieldType animateExtraIdType;
+    private long[] animateContentColumnIndexes;
+    private RealmFieldType[] animateContentColumnTypes;
+    private long[] contentColumnValues;
+    private final RealmRowCursor rowCursor = new RealmRowCursor();
+    private ColumnMetadata columnMetadata;
+    private long headerColumnIndex;
+    private RealmFieldType headerColumnType;
+    private boolean stableIds;
+    private long stableIdColumnIndex;
+    private RealmFieldType stableIdType;
+
+    private RecyclerView recyclerView;
+    private Executor diffExecutor;
+    private final SparseIntArray preInflateCounts = new SparseIntArray();
+    private DiffStrategy diffStrategy = new TrimmingDiffStrategy(new KeyedDiffStrategy());
+    private DiffCostModel diffCostModel;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int diffGeneration;
+    private int pendingDiffCount;
+    // Whether the result of the latest diff hasn't been dispatched yet.
+    private boolean hasPendingDiff;
+    private int windowSize = -1;
+    private int windowStart;
+    // The rows inserted in front of the dispatched window by the last snapshot, if known.
+    private int windowShift;
+
+    private UpdateCoalescingPolicy coalescingPolicy;
+    private boolean hasDeferredChange;
+    private long firstDeferredChangeTime;
+    private long lastDispatchTime;
+    private boolean scrolling;
+    // The number of realm rows and headers the recyclerView has been notified about.
+    private int dispatchedRealmItemCount;
+    private int lastRealmViewType;
+    // The realm positions bound while a change hadn't been dispatched.
+    private int[] staleRows = new int[16];
+    private int staleRowCount;
+    private boolean staleRowsOverflow;
+
+    private AdapterMetrics metrics;
+    private boolean notifiedDataSetChanged;
 
     public RealmBasedRecyclerViewAdapter(
             Context context,
@@ -159,17 +252,16 @@ public abstract class RealmBasedRecyclerViewAdapter
         this.inflater = LayoutInflater.from(context);
         this.listener = (!automaticUpdate) ? null : getRealmChangeListener();
 
-        rowWrappers = new ArrayList<>();
-
         // If automatic updates aren't enabled, then animateResults should be false as well.
         this.animateResults = (automaticUpdate && animateResults);
         if (animateResults) {
-            animatePrimaryColumnIndex = realmResults.getTableOrView().getTable().getPrimaryKey();
+            final ColumnMetadata metadata = ColumnMetadata.of(realmResults);
+            animatePrimaryColumnIndex = metadata.getPrimaryKeyIndex();
             if (animatePrimaryColumnIndex == TableOrView.NO_MATCH) {
                 throw new IllegalStateException(
                         "Animating the results requires a primaryKey.");
             }
-            animatePrimaryIdType = realmResults.getTableOrView().getColumnType(animatePrimaryColumnIndex);
+            animatePrimaryIdType = metadata.getColumnType(animatePrimaryColumnIndex);
             if (animatePrimaryIdType != RealmFieldType.INTEGER &&
                     animatePrimaryIdType != RealmFieldType.STRING) {
                 throw new IllegalStateException(
@@ -177,13 +269,12 @@ public abstract class RealmBasedRecyclerViewAdapter
             }
 
             if (animateExtraColumnName != null) {
-                animateExtraColumnIndex = realmResults.getTableOrView().getTable()
-                        .getColumnIndex(animateExtraColumnName);
+                animateExtraColumnIndex = metadata.getColumnIndex(animateExtraColumnName);
                 if (animateExtraColumnIndex == TableOrView.NO_MATCH) {
                     throw new IllegalStateException(
                             "Animating the results requires a valid animateColumnName.");
                 }
-                animateExtraIdType = realmResults.getTableOrView().getColumnType(animateExtraColumnIndex);
+                animateExtraIdType = metadata.getColumnType(animateExtraColumnIndex);
                 if (animateExtraIdType != RealmFieldType.INTEGER &&
                         animateExtraIdType != RealmFieldType.STRING &&
                         animateExtraIdType != RealmFieldType.DATE) {
@@ -207,6 +298,39 @@ public abstract class RealmBasedRecyclerViewAdapter
 
     public abstract void onBindRealmViewHolder(VH holder, int position);
 
+    /**
+     * Binds the row with a {@link RealmRowCursor} that reads its columns directly, without
+     * creating a proxy object from the results. The cursor is reused for every row and only valid
+     * during this call. Override it to bind without allocations, e.g. with column indexes resolved
+     * once with {@link #getColumnIndex(String)}. Calls onBindRealmViewHolder(holder, position) by
+     * default.
+     */
+    public void onBindRealmViewHolder(VH holder, int position, RealmRowCursor row) {
+        onBindRealmViewHolder(holder, position);
+    }
+
+    /**
+     * Returns the index of the column for the getters of the {@link RealmRowCursor}.
+     */
+    public long getColumnIndex(String columnName) {
+        final long columnIndex = getColumnMetadata().getColumnIndex(columnName);
+        if (columnIndex == TableOrView.NO_MATCH) {
+            throw new IllegalArgumentException("Unknown column: " + columnName);
+        }
+        return columnIndex;
+    }
+
+    /**
+     * Binds a row again after its animateContentColumns changed. The payloads hold a
+     * {@link ContentChange} per change notification, {@link ContentChange#getChangedColumns(List)}
+     * combines their changed columns, so only the views of these columns have to be updated.
+     * Binds the whole row by default, through
+     * {@link #onBindRealmViewHolder(RealmViewHolder, int, RealmRowCursor)}.
+     */
+    public void onBindRealmViewHolder(VH holder, int position, List<Object> payloads) {
+        bindRealmRow(holder, position);
+    }
+
     public VH onCreateFooterViewHolder(ViewGroup viewGroup) {
         throw new IllegalStateException("Implementation missing");
     }
@@ -221,7 +345,7 @@ public abstract class RealmBasedRecyclerViewAdapter
     }
 
     public void onBindHeaderViewHolder(RealmViewHolder holder, int position) {
-        String header = rowWrappers.get(position).header;
+        String header = sectionIndex.getHeader(sectionIndex.getSection(position));
         final GridSLM.LayoutParams layoutParams =
             GridSLM.LayoutParams.from(holder.itemView.getLayoutParams());
 
@@ -237,14 +361,351 @@ public abstract class RealmBasedRecyclerViewAdapter
         return context;
     }
 
+    /**
+     * Sets the executor on which the animated updates are diffed. If set, the diff runs off the UI
+     * thread and the resulting notifications are dispatched on the main looper. A result that is
+     * superseded by a newer change before it is dispatched is discarded. While the diff runs, the
+     * adapter keeps reporting the dispatched item count and the rows bound meanwhile are bound
+     * again once the result is dispatched. Pass null to diff synchronously inside the change
+     * listener (default).
+     */
+    public void setDiffExecutor(Executor diffExecutor) {
+        this.diffExecutor = diffExecutor;
+    }
+
+    /**
+     * Sets the number of view holders of the view type that the {@link RealmRecyclerView}
+     * creates ahead of the first scroll. Besides the types of getItemRealmViewType, this works
+     * for the header (100), load more (101), footer (102) and load previous (103) rows. Has to be
+     * set before the adapter is set on the RealmRecyclerView.
+     */
+    public void setPreInflateCount(int viewType, int count) {
+        if (count > 0) {
+            preInflateCounts.put(viewType, count);
+        } else {
+            preInflateCounts.delete(viewType);
+        }
+    }
+
+    public SparseIntArray getPreInflateCounts() {
+        return preInflateCounts;
+    }
+
+    /**
+     * Returns the inflater for onCreateRealmViewHolder. The {@link #inflater} may only be used on
+     * the main thread. While view holders are pre-inflated on an executor, this returns a clone of
+     * it for the executor thread.
+     */
+    protected LayoutInflater getLayoutInflater() {
+        final LayoutInflater layoutInflater = threadInflater.get();
+        return layoutInflater != null ? layoutInflater : inflater;
+    }
+
+    /**
+     * Returns true for the realm view types, whose view holders can be created off the main
+     * thread. The header, load more, footer and load previous view holders are always created on
+     * the main thread.
+     */
+    public boolean canCreateViewHolderOffMainThread(int viewType) {
+        return viewType != HEADER_VIEW_TYPE
+                && viewType != LOAD_MORE_VIEW_TYPE
+                && viewType != FOOTER_VIEW_TYPE
+                && viewType != LOAD_PREVIOUS_VIEW_TYPE;
+    }
+
+    /**
+     * Creates a view holder of a realm view type off the main thread, with
+     * {@link #getLayoutInflater()} returning a clone of the inflater for the calling thread.
+     */
+    public RealmViewHolder createViewHolderOffMainThread(ViewGroup viewGroup, int viewType) {
+        if (!canCreateViewHolderOffMainThread(viewType)) {
+            throw new IllegalArgumentException(
+                    "View type " + viewType + " has to be created on the main thread.");
+        }
+        threadInflater.set(inflater.cloneInContext(context));
+        try {
+            return createViewHolder(viewGroup, viewType);
+        } finally {
+            threadInflater.remove();
+        }
+    }
+
+    /**
+     * Enables stable ids derived from the primary key of the rows, so the recyclerView can keep
+     * the view holders of the rows when the whole list is refreshed. String keys are reduced to
+     * their 64 bit fingerprint. The headers, load more, footer and load previous rows get ids of
+     * their own. Requires a primary key of type Integer/Long or String and has to be set before
+     * the adapter is set on the RealmRecyclerView. It can be called before or after
+     * {@link #setMetrics(AdapterMetrics)}.
+     */
+    public void setStableIds(boolean stableIds) {
+        this.stableIds = stableIds;
+        if (stableIds) {
+            resolveStableIdColumn();
+        }
+        setHasStableIds(stableIds);
+    }
+
+    private void resolveStableIdColumn() {
+        if (realmResults == null) {
+            return;
+        }
+        final ColumnMetadata metadata = getColumnMetadata();
+        stableIdColumnIndex = metadata.getPrimaryKeyIndex();
+        if (stableIdColumnIndex == TableOrView.NO_MATCH) {
+            throw new IllegalStateException("Stable ids require a primaryKey.");
+        }
+        stableIdType = metadata.getColumnType(stableIdColumnIndex);
+        if (stableIdType != RealmFieldType.INTEGER && stableIdType != RealmFieldType.STRING) {
+            throw new IllegalStateException(
+                    "Stable ids require a primary key of type Integer/Long or String");
+        }
+    }
+
+    @Override
+    public long getItemId(int position) {
+        if (!stableIds) {
+            return RecyclerView.NO_ID;
+        }
+        final int viewType = getItemViewType(position);
+        if (viewType == LOAD_PREVIOUS_VIEW_TYPE) {
+            return LOAD_PREVIOUS_ID;
+        } else if (viewType == LOAD_MORE_VIEW_TYPE) {
+            return LOAD_MORE_ID;
+        } else if (viewType == FOOTER_VIEW_TYPE) {
+            return FOOTER_ID;
+        }
+        final int realmIndex;
+        if (addSectionHeaders) {
+            final int section = sectionIndex.getSection(position);
+            if (sectionIndex.getSectionPosition(section) == position) {
+                return RowSnapshots.getHeaderId(sectionIndex.getHeader(section));
+            }
+            realmIndex = position - section - 1;
+        } else {
+            realmIndex = position - getHeadCount();
+        }
+        if (!isBoundRealmIndex(realmIndex)) {
+            return RecyclerView.NO_ID;
+        }
+        final TableOrView table = realmResults.getTableOrView();
+        if (stableIdType == RealmFieldType.INTEGER) {
+            return table.getLong(stableIdColumnIndex, realmIndex);
+        }
+        return Fingerprint.of(table.getString(stableIdColumnIndex, realmIndex));
+    }
+
+    /**
+     * Sets the columns that make up the content of a row. The animation then identifies a row by
+     * its primary key alone and a row whose content columns changed is rebound in place with the
+     * {@link #PAYLOAD_CONTENT_CHANGED} payload instead of being removed and inserted. Can't be
+     * combined with an animateExtraColumnName.
+     */
+    public void setAnimateContentColumnNames(String... columnNames) {
+        if (!animateResults) {
+            throw new IllegalStateException(
+                    "Content columns require automaticUpdate and animateResults.");
+        }
+        if (animateExtraColumnIndex != -1) {
+            throw new IllegalStateException(
+                    "Content columns can't be combined with an animateExtraColumnName.");
+        }
+        if (columnNames != null && columnNames.length > 64) {
+            throw new IllegalStateException("At most 64 content columns are supported.");
+        }
+        if (columnNames == null || columnNames.length == 0) {
+            animateContentColumnIndexes = null;
+            animateContentColumnTypes = null;
+            contentColumnValues = null;
+        } else {
+            final ColumnMetadata metadata = getColumnMetadata();
+            animateContentColumnIndexes = new long[columnNames.length];
+            animateContentColumnTypes = new RealmFieldType[columnNames.length];
+            for (int i = 0; i < columnNames.length; i++) {
+                final long columnIndex = metadata.getColumnIndex(columnNames[i]);
+                if (columnIndex == TableOrView.NO_MATCH) {
+                    throw new IllegalStateException(
+                            "Unknown content column: " + columnNames[i]);
+                }
+                final RealmFieldType columnType = metadata.getColumnType(columnIndex);
+                if (columnType != RealmFieldType.INTEGER &&
+                        columnType != RealmFieldType.BOOLEAN &&
+                        columnType != RealmFieldType.STRING &&
+                        columnType != RealmFieldType.DATE &&
+                        columnType != RealmFieldType.FLOAT &&
+                        columnType != RealmFieldType.DOUBLE) {
+                    throw new IllegalStateException(
+                            "Content columns have to be of type Int/Long, Boolean, String, "
+                                    + "Date, Float or Double");
+                }
+                animateContentColumnIndexes[i] = columnIndex;
+                animateContentColumnTypes[i] = columnType;
+            }
+            contentColumnValues = new long[columnNames.length];
+        }
+        // The dispatched ids have to carry the content fingerprints from now on.
+        resetIds();
+    }
+
+    /**
+     * Enables the windowed mode for very large results. Only the ids of windowSize rows around
+     * the visible range are read and diffed on a change, so the cost of an update depends on the
+     * window instead of the size of the results. Changes outside of the window are not animated:
+     * rows inserted or removed in front of the window are reported at its front edge, the ones
+     * behind it at its end, and the rows outside are bound again. If the first row of the window
+     * can't be found within a window size of its old position, the update is dispatched as a full
+     * refresh. The window follows the visible range reported by the {@link RealmRecyclerView}.
+     *
+     * Requires animateResults and is not supported with section headers.
+     *
+     * @param windowSize the number of rows in the window or -1 to disable the windowed mode
+     */
+    public void setWindowSize(int windowSize) {
+        if (windowSize != -1) {
+            if (!animateResults) {
+                throw new IllegalStateException(
+                        "The windowed mode requires automaticUpdate and animateResults.");
+            }
+            if (addSectionHeaders) {
+                throw new IllegalStateException(
+                        "The windowed mode is not supported with section headers.");
+            }
+            if (windowSize <= 0) {
+                throw new IllegalArgumentException("The windowSize has to be positive");
+            }
+        }
+        this.windowSize = windowSize;
+        resetIds();
+    }
+
+    /**
+     * Sets the {@link UpdateCoalescingPolicy} for the automatic updates. Bursts of changes are
+     * then dispatched as a single update against the latest results. Until then, the adapter keeps
+     * reporting the previously dispatched item count and rows that don't exist anymore aren't
+     * bound. The rows bound meanwhile are bound again once the change has been dispatched. Pass
+     * null to dispatch every change right away (default).
+     */
+    public void setUpdateCoalescingPolicy(UpdateCoalescingPolicy coalescingPolicy) {
+        this.coalescingPolicy = coalescingPolicy;
+        if (hasDeferredChange) {
+            mainHandler.removeCallbacks(deferredChangeRunnable);
+            if (coalescingPolicy == null) {
+                dispatchDeferredChange();
+            } else {
+                scheduleDeferredChange();
+            }
+        }
+    }
+
+    /**
+     * Enables the metrics of the adapter. Pass null to disable them (default). The notifications
+     * are only counted while the adapter is attached to a recyclerView.
+     */
+    public void setMetrics(AdapterMetrics metrics) {
+        if (recyclerView != null) {
+            if (this.metrics == null && metrics != null) {
+                registerAdapterDataObserver(metricsObserver);
+            } else if (this.metrics != null && metrics == null) {
+                unregisterAdapterDataObserver(metricsObserver);
+            }
+        }
+        this.metrics = metrics;
+    }
+
+    public AdapterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Called by the {@link RealmRecyclerView} when its scroll state changes. Deferred changes are
+     * dispatched once the list is idle if the policy defers them while scrolling.
+     */
+    public void onScrollStateChanged(int newState) {
+        scrolling = newState != RecyclerView.SCROLL_STATE_IDLE;
+        if (!scrolling && hasDeferredChange) {
+            scheduleDeferredChange();
+        }
+    }
+
+    /**
+     * Called by the {@link RealmRecyclerView} when the visible positions change. In the windowed
+     * mode, the window is moved once the visible range gets close to one of its edges.
+     */
+    public void onVisibleRangeChanged(int firstPosition, int lastPosition) {
+        if (windowSize == -1 || firstPosition < 0 || hasUndispatchedChange()) {
+            return;
+        }
+        firstPosition = Math.max(0, firstPosition - getHeadCount());
+        lastPosition -= getHeadCount();
+        final int margin = windowSize / 4;
+        final int start = ids.getOffset();
+        final int end = start + ids.size();
+        final int totalSize = ids.getTotalSize();
+        final boolean nearStart = start > 0 && firstPosition < start + margin;
+        final boolean nearEnd = end < totalSize && lastPosition >= end - margin;
+        if (!nearStart && !nearEnd) {
+            return;
+        }
+        windowStart = Math.max(0, (firstPosition + lastPosition - windowSize) / 2);
+        // The data hasn't changed, only the rows that are tracked for the next change.
+        setIds(getIdsOfRealmResults());
+    }
+
+    /**
+     * Sets the {@link DiffStrategy} used for the animated updates. The default is the
+     * {@link KeyedDiffStrategy}, which relies on the ids being unique and reports moves, wrapped
+     * in a {@link TrimmingDiffStrategy} so that single range changes skip the diff entirely.
+     */
+    public void setDiffStrategy(DiffStrategy diffStrategy) {
+        if (diffStrategy == null) {
+            throw new IllegalArgumentException("DiffStrategy cannot be null");
+        }
+        this.diffStrategy = diffStrategy;
+    }
+
+    /**
+     * Sets the {@link DiffCostModel} that decides whether a large diff is dispatched as is,
+     * collapsed into a single range or dispatched as a full refresh. Pass null to always dispatch
+     * the diff as is (default).
+     */
+    public void setDiffCostModel(DiffCostModel diffCostModel) {
+        this.diffCostModel = diffCostModel;
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        this.recyclerView = recyclerView;
+        // Registered only now, as an observer prevents changing the stable ids.
+        if (metrics != null) {
+            registerAdapterDataObserver(metricsObserver);
+        }
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        if (metrics != null) {
+            unregisterAdapterDataObserver(metricsObserver);
+        }
+        this.recyclerView = null;
+    }
+
     /**
      * DON'T OVERRIDE THIS METHOD. Implement onCreateRealmViewHolder instead.
      */
     @Override
     public final RealmViewHolder onCreateViewHolder(ViewGroup viewGroup, int viewType) {
+        final long start = startPhase();
+        final RealmViewHolder holder = createAdapterViewHolder(viewGroup, viewType);
+        endPhase(AdapterMetrics.Phase.CREATE_VIEW_HOLDER, start);
+        return holder;
+    }
+
+    private RealmViewHolder createAdapterViewHolder(ViewGroup viewGroup, int viewType) {
         if (viewType == HEADER_VIEW_TYPE) {
             return onCreateHeaderViewHolder(viewGroup);
-        } else if (viewType == LOAD_MORE_VIEW_TYPE) {
+        } else if (viewType == LOAD_MORE_VIEW_TYPE || viewType == LOAD_PREVIOUS_VIEW_TYPE) {
             return new RealmViewHolder(new LoadMoreListItemView(viewGroup.getContext()));
         } else if (viewType == FOOTER_VIEW_TYPE) {
             return onCreateFooterViewHolder(viewGroup);
@@ -256,52 +717,207 @@ public abstract class RealmBasedRecyclerViewAdapter
      * DON'T OVERRIDE THIS METHOD. Implement onBindRealmViewHolder instead.
      */
     @Override
-    @SuppressWarnings("unchecked")
     public final void onBindViewHolder(RealmViewHolder holder, int position) {
-        if (getItemViewType(position) == LOAD_MORE_VIEW_TYPE) {
+        final long start = startPhase();
+        bindAdapterViewHolder(holder, position);
+        endPhase(AdapterMetrics.Phase.BIND_VIEW_HOLDER, start);
+    }
+
+    /**
+     * DON'T OVERRIDE THIS METHOD. Implement onBindRealmViewHolder instead.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public final void onBindViewHolder(
+            RealmViewHolder holder, int position, List<Object> payloads) {
+        final int viewType = holder.getItemViewType();
+        if (payloads.isEmpty()
+                || hasUndispatchedChange()
+                || viewType == LOAD_MORE_VIEW_TYPE
+                || viewType == LOAD_PREVIOUS_VIEW_TYPE
+                || viewType == FOOTER_VIEW_TYPE
+                || (addSectionHeaders && position >= sectionIndex.size())) {
+            super.onBindViewHolder(holder, position, payloads);
+            return;
+        }
+        int contentChanges = 0;
+        for (Object payload : payloads) {
+            if (payload instanceof ContentChange) {
+                contentChanges++;
+            } else if (payload != PAYLOAD_SECTION_CHANGED) {
+                super.onBindViewHolder(holder, position, payloads);
+                return;
+            }
+        }
+        final long start = startPhase();
+        int realmIndex = position - getHeadCount();
+        if (addSectionHeaders) {
+            final int section = sectionIndex.getSection(position);
+            final int sectionPosition = sectionIndex.getSectionPosition(section);
+            realmIndex = position == sectionPosition ? -1 : position - section - 1;
+            updateSectionLayoutParams(holder, sectionPosition);
+        }
+        if (contentChanges > 0 && realmIndex != -1 && isBoundRealmIndex(realmIndex)) {
+            if (contentChanges < payloads.size()) {
+                final List<Object> contentPayloads = new ArrayList<>(contentChanges);
+                for (Object payload : payloads) {
+                    if (payload instanceof ContentChange) {
+                        contentPayloads.add(payload);
+                    }
+                }
+                payloads = contentPayloads;
+            }
+            onBindRealmViewHolder((VH) holder, realmIndex, payloads);
+        }
+        endPhase(AdapterMetrics.Phase.BIND_VIEW_HOLDER, start);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void bindAdapterViewHolder(RealmViewHolder holder, int position) {
+        final int viewType = getItemViewType(position);
+        if (viewType == LOAD_MORE_VIEW_TYPE || viewType == LOAD_PREVIOUS_VIEW_TYPE) {
             holder.loadMoreView.showSpinner();
-        } else if (getItemViewType(position) == FOOTER_VIEW_TYPE) {
+        } else if (viewType == FOOTER_VIEW_TYPE) {
             onBindFooterViewHolder((VH) holder, position);
         } else {
+            if (hasUndispatchedChange()) {
+                addStaleRow(position - getHeadCount());
+            }
             if (addSectionHeaders) {
-                final String header = rowWrappers.get(position).header;
-                final GridSLM.LayoutParams layoutParams =
-                        GridSLM.LayoutParams.from(holder.itemView.getLayoutParams());
+                final int section = sectionIndex.getSection(position);
+                final int sectionPosition = sectionIndex.getSectionPosition(section);
                 // Setup the header
-                if (header != null) {
-                    layoutParams.isHeader = true;
+                if (position == sectionPosition) {
                     onBindHeaderViewHolder(holder,position);
-                } else {
-                    onBindRealmViewHolder((VH) holder, rowWrappers.get(position).realmIndex);
-                }
-                layoutParams.setSlm(LinearSLM.ID);
-                if (header != null) {
-                    layoutParams.setFirstPosition(position);
-                } else {
-                    layoutParams.setFirstPosition(rowWrappers.get(position).sectionHeaderIndex);
+                } else if (isBoundRealmIndex(position - section - 1)) {
+                    bindRealmRow((VH) holder, position - section - 1);
                 }
-                holder.itemView.setLayoutParams(layoutParams);
-            } else {
-                onBindRealmViewHolder((VH) holder, position);
+                updateSectionLayoutParams(holder, sectionPosition);
+            } else if (isBoundRealmIndex(position - getHeadCount())) {
+                bindRealmRow((VH) holder, position - getHeadCount());
             }
         }
     }
 
-    public Object getLastItem() {
-        if (addSectionHeaders) {
-            return realmResults.get(rowWrappers.get(rowWrappers.size() - 1).realmIndex);
+    private void bindRealmRow(VH holder, int realmIndex) {
+        rowCursor.moveTo(realmResults.getTableOrView(), realmIndex);
+        onBindRealmViewHolder(holder, realmIndex, rowCursor);
+    }
+
+    private void updateSectionLayoutParams(RealmViewHolder holder, int sectionPosition) {
+        final GridSLM.LayoutParams layoutParams =
+                GridSLM.LayoutParams.from(holder.itemView.getLayoutParams());
+        if (holder.getItemViewType() == HEADER_VIEW_TYPE) {
+            layoutParams.isHeader = true;
+        }
+        layoutParams.setSlm(LinearSLM.ID);
+        layoutParams.setFirstPosition(sectionPosition);
+        holder.itemView.setLayoutParams(layoutParams);
+    }
+
+    /**
+     * While a change is deferred, the positions can point past the end of the latest results.
+     * These rows are bound once the change has been dispatched.
+     */
+    private boolean isBoundRealmIndex(int realmIndex) {
+        return !hasUndispatchedChange() || realmIndex < realmResults.size();
+    }
+
+    /**
+     * Returns true while the results have changed, but the recyclerView hasn't been notified of
+     * the change yet. The rows bound meanwhile are read from the changed results at the positions
+     * of the dispatched ones, so they are bound again once the change is dispatched. Rows should
+     * not be bound ahead of time meanwhile.
+     */
+    public boolean hasUndispatchedChange() {
+        return hasDeferredChange || hasPendingDiff;
+    }
+
+    private void addStaleRow(int position) {
+        if (staleRowsOverflow
+                || (staleRowCount > 0 && staleRows[staleRowCount - 1] == position)) {
+            return;
+        }
+        if (staleRowCount == MAX_STALE_ROWS) {
+            staleRowsOverflow = true;
+            return;
+        }
+        if (staleRowCount == staleRows.length) {
+            staleRows = Arrays.copyOf(staleRows, staleRowCount * 2);
+        }
+        staleRows[staleRowCount++] = position;
+    }
+
+    private void clearStaleRows() {
+        staleRowCount = 0;
+        staleRowsOverflow = false;
+    }
+
+    /**
+     * Binds the rows that were bound before the change was dispatched again at their positions
+     * after the updates. Rows outside of a window are rebound by the window dispatch itself.
+     */
+    private void rebindStaleRows(DiffResult result, int offset, int newOffset, int oldSize) {
+        if (staleRowsOverflow) {
+            notifyItemRangeChanged(getHeadCount(), dispatchedRealmItemCount, PAYLOAD_REBIND);
         } else {
-            return realmResults.get(realmResults.size() - 1);
+            final int updateCount = result.getUpdateCount();
+            for (int i = 0; i < staleRowCount; i++) {
+                final int position = staleRows[i] - offset;
+                if (position < 0 || position >= oldSize) {
+                    continue;
+                }
+                final int newPosition = result.getPositionAfter(position, 0, updateCount);
+                if (newPosition != -1) {
+                    notifyItemChanged(getHeadCount() + newOffset + newPosition, PAYLOAD_REBIND);
+                }
+            }
         }
+        clearStaleRows();
+    }
+
+    /**
+     * Returns the number of realm rows, without headers and the loadMore and footer rows.
+     */
+    public int getLoadedItemCount() {
+        return realmResults == null ? 0 : realmResults.size();
+    }
+
+    public Object getLastItem() {
+        // With section headers, the last row is always a realm row as well.
+        return realmResults.get(realmResults.size() - 1);
+    }
+
+    public Object getFirstItem() {
+        return realmResults.get(0);
+    }
+
+    /**
+     * Returns the realm row at the index, without headers and the extra rows.
+     */
+    public Object getLoadedItem(int index) {
+        return realmResults.get(index);
+    }
+
+    /**
+     * Returns the number of rows in front of the realm rows, i.e. 1 if the LoadPrevious item is
+     * shown and 0 otherwise.
+     */
+    public int getHeadCount() {
+        return loadPreviousItem == null ? 0 : 1;
     }
 
     @Override
     public int getItemCount() {
         int extraCount = loadMoreItem == null ? 0 : 1;
         extraCount += footerItem == null ? 0 : 1;
+        extraCount += getHeadCount();
 
+        if (hasUndispatchedChange()) {
+            return dispatchedRealmItemCount + extraCount;
+        }
         if (addSectionHeaders) {
-            return rowWrappers.size() + extraCount;
+            return sectionIndex.size() + extraCount;
         }
 
         if (realmResults == null) {
@@ -312,16 +928,38 @@ public abstract class RealmBasedRecyclerViewAdapter
 
     @Override
     public int getItemViewType(int position) {
-        if (loadMoreItem != null && position == getItemCount() - 1) {
+        if (loadPreviousItem != null && position == 0) {
+            return LOAD_PREVIOUS_VIEW_TYPE;
+        } else if (loadMoreItem != null && position == getLoadMorePosition()) {
             return LOAD_MORE_VIEW_TYPE;
         } else if (footerItem != null && position == getItemCount() - 1) {
             return FOOTER_VIEW_TYPE;
-        } else if (!rowWrappers.isEmpty() && !rowWrappers.get(position).isRealm) {
+        } else if (addSectionHeaders && position < sectionIndex.size()
+                && sectionIndex.isHeader(position)) {
             return HEADER_VIEW_TYPE;
         }
-        return getItemRealmViewType(position);
+        final int realmIndex;
+        if (addSectionHeaders) {
+            // Past the end of the sections while a change hasn't been dispatched.
+            realmIndex = position < sectionIndex.size()
+                    ? position - sectionIndex.getSection(position) - 1 : Integer.MAX_VALUE;
+        } else {
+            realmIndex = position - getHeadCount();
+        }
+        if (!isBoundRealmIndex(realmIndex)) {
+            // The row isn't bound before the change is dispatched, any realm view type will do.
+            return lastRealmViewType;
+        }
+        lastRealmViewType = getItemRealmViewType(position - getHeadCount());
+        return lastRealmViewType;
     }
 
+    /**
+     * Returns the view type of a realm row. It is only called for rows that exist in the
+     * results. While a change hasn't been dispatched, the recyclerView can still ask for rows
+     * past the end of the results; these get the view type last returned by this method and are
+     * bound once the change has been dispatched.
+     */
     public int getItemRealmViewType(int position) {
         return super.getItemViewType(position);
     }
@@ -349,13 +987,40 @@ public abstract class RealmBasedRecyclerViewAdapter
         if (listener != null && realmResults != null) {
             realmResults.addChangeListener(listener);
         }
+        columnMetadata = null;
+        headerColumnType = null;
+        if (stableIds) {
+            resolveStableIdColumn();
+        }
 
+        cancelPendingDiff();
+        cancelDeferredChange();
+        realmRowKeys = null;
         updateRowWrappers();
-        ids = getIdsOfRealmResults();
+        setIds(getIdsOfRealmResults());
+        dispatchedRealmItemCount = getRealmItemCount();
 
         notifyDataSetChanged();
     }
 
+    /**
+     * Returns the column metadata of the results. It is looked up once per results, the schema
+     * can't change while the realm is open.
+     */
+    private ColumnMetadata getColumnMetadata() {
+        if (columnMetadata == null) {
+            columnMetadata = ColumnMetadata.of(realmResults);
+        }
+        return columnMetadata;
+    }
+
+    private int getRealmItemCount() {
+        if (addSectionHeaders) {
+            return sectionIndex.size();
+        }
+        return realmResults == null ? 0 : realmResults.size();
+    }
+
     /**
      * Method that creates the header string that should be used. Override this method to have
      * a custom header.
@@ -376,216 +1041,819 @@ public abstract class RealmBasedRecyclerViewAdapter
 
     }
 
+    /**
+     * Returns the header of the section the position belongs to or null if there are no
+     * sections. Cheap enough to be called from scroll callbacks, e.g. for sticky headers.
+     */
     public String getHeaderAtPosition(int position) {
-        for (int i = rowWrappers.size() - 1; i >= 0; i--) {
-            RowWrapper rowWrapper = rowWrappers.get(i);
-            if (!rowWrapper.isRealm) {
-                if (rowWrapper.sectionHeaderIndex <= position) {
-                    return rowWrapper.header;
-                }
-            }
-        }
+        final int section = getSectionForPosition(position);
+        return section == -1 ? null : sectionIndex.getHeader(section);
+    }
 
-        return null;
+    /**
+     * Returns the number of sections. Always 0 if section headers aren't enabled.
+     */
+    public int getSectionCount() {
+        return addSectionHeaders ? sectionIndex.getSectionCount() : 0;
     }
 
-    private List getIdsOfRealmResults() {
-        if (!animateResults || realmResults == null || realmResults.size() == 0) {
-            return EMPTY_LIST;
+    /**
+     * Returns the index of the section the position belongs to or -1 if there are no sections.
+     * The loadMore and footer positions belong to the last section.
+     */
+    public int getSectionForPosition(int position) {
+        if (position < 0 || getSectionCount() == 0) {
+            return -1;
         }
+        return sectionIndex.getSection(position);
+    }
+
+    /**
+     * Returns the position of the header of the section.
+     */
+    public int getPositionForSection(int section) {
+        return sectionIndex.getSectionPosition(section);
+    }
 
+    public String getHeaderForSection(int section) {
+        return sectionIndex.getHeader(section);
+    }
+
+    private IdSnapshot getIdsOfRealmResults() {
+        final IdSnapshot snapshot = obtainIdSnapshot();
+        if (!animateResults || realmResults == null || realmResults.size() == 0) {
+            return snapshot;
+        }
+
+        // With section headers, the ids have already been read for the row keys.
+        final RowReader rows = getRowReader();
         if (addSectionHeaders) {
-            List ids = new ArrayList(rowWrappers.size());
-            for (int i = 0; i < rowWrappers.size(); i++) {
-                final RowWrapper rowWrapper = rowWrappers.get(i);
-                if (rowWrapper.isRealm) {
-                    ids.add(getRealmRowId(rowWrappers.get(i).realmIndex));
-                } else {
-                    ids.add(rowWrappers.get(i).header);
-                }
-            }
-            return ids;
+            snapshot.reset(sectionIndex.size());
+            RowSnapshots.addSections(
+                    rows, sectionIndex, snapshot, realmRowKeys, contentColumnValues);
+        } else if (windowSize != -1) {
+            final int totalSize = realmResults.size();
+            // The window follows its rows when rows are inserted or removed in front of it.
+            final int shift = findWindowShift(rows, totalSize);
+            windowStart = shift == UNKNOWN_WINDOW_SHIFT
+                    ? windowStart : Math.max(0, windowStart + shift);
+            final int start = Math.max(0, Math.min(windowStart, totalSize - windowSize));
+            windowShift = shift != UNKNOWN_WINDOW_SHIFT && start == ids.getOffset() + shift
+                    ? shift : UNKNOWN_WINDOW_SHIFT;
+            final int end = Math.min(totalSize, start + windowSize);
+            snapshot.reset(end - start);
+            RowSnapshots.addRows(rows, snapshot, start, end, realmRowKeys, contentColumnValues);
+            snapshot.setWindow(start, totalSize);
         } else {
-            List ids = new ArrayList(realmResults.size());
-            for (int i = 0; i < realmResults.size(); i++) {
-                ids.add(getRealmRowId(i));
+            final int size = realmResults.size();
+            snapshot.reset(size);
+            RowSnapshots.addRows(rows, snapshot, 0, size, realmRowKeys, contentColumnValues);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the number of rows inserted (positive) or removed (negative) in front of the
+     * dispatched window. The first row of the window is looked up around its old position, so
+     * a small shift only costs a few reads. Returns {@link #UNKNOWN_WINDOW_SHIFT} if the row isn't
+     * within a window size of its old position anymore.
+     */
+    private int findWindowShift(RowReader rows, int totalSize) {
+        if (ids.isEmpty()) {
+            return UNKNOWN_WINDOW_SHIFT;
+        }
+        final long anchor = ids.get(0);
+        final int oldOffset = ids.getOffset();
+        for (int distance = 0; distance <= windowSize; distance++) {
+            if (oldOffset + distance < totalSize
+                    && rows.getRowId(oldOffset + distance) == anchor) {
+                return distance;
+            }
+            if (distance > 0 && oldOffset - distance >= 0 && oldOffset - distance < totalSize
+                    && rows.getRowId(oldOffset - distance) == anchor) {
+                return -distance;
+            }
+        }
+        return UNKNOWN_WINDOW_SHIFT;
+    }
+
+    /**
+     * Reads the fingerprints of the animateContentColumns of the row at the realmIndex.
+     */
+    private void readRealmRowContent(TableOrView table, int realmIndex, long[] values) {
+        for (int i = 0; i < animateContentColumnIndexes.length; i++) {
+            final long columnIndex = animateContentColumnIndexes[i];
+            final RealmFieldType columnType = animateContentColumnTypes[i];
+            long value;
+            if (columnType == RealmFieldType.INTEGER) {
+                value = table.getLong(columnIndex, realmIndex);
+            } else if (columnType == RealmFieldType.BOOLEAN) {
+                value = table.getBoolean(columnIndex, realmIndex) ? 1 : 0;
+            } else if (columnType == RealmFieldType.STRING) {
+                value = Fingerprint.of(table.getString(columnIndex, realmIndex));
+            } else if (columnType == RealmFieldType.DATE) {
+                final Date date = table.getDate(columnIndex, realmIndex);
+                value = date == null ? Fingerprint.of((String) null) : date.getTime();
+            } else if (columnType == RealmFieldType.FLOAT) {
+                value = Float.floatToIntBits(table.getFloat(columnIndex, realmIndex));
+            } else if (columnType == RealmFieldType.DOUBLE) {
+                value = Double.doubleToLongBits(table.getDouble(columnIndex, realmIndex));
+            } else {
+                throw new IllegalStateException("Unknown content column type");
             }
-            return ids;
+            values[i] = value;
         }
     }
 
-    private Object getRealmRowId(int realmIndex) {
-        Object rowPrimaryId;
-        RealmObjectProxy proxy = (RealmObjectProxy) realmResults.get(realmIndex);
-        Row row = proxy.realmGet$proxyState().getRow$realm();
+    /**
+     * Returns the recycled snapshot if there is one. The snapshot is always returned empty.
+     */
+    private IdSnapshot obtainIdSnapshot() {
+        final IdSnapshot snapshot = spareIds != null ? spareIds : new IdSnapshot();
+        spareIds = null;
+        snapshot.reset(0);
+        return snapshot;
+    }
+
+    /**
+     * Replaces the dispatched ids. The previous snapshot is recycled unless a background diff
+     * might still be reading it.
+     */
+    private void setIds(IdSnapshot newIds) {
+        if (ids != newIds && pendingDiffCount == 0) {
+            spareIds = ids;
+        }
+        ids = newIds;
+    }
 
+    /**
+     * Returns the id of the row at the realmIndex. String values are reduced to their
+     * {@link Fingerprint} and the animateExtraColumn value, if set, is mixed into the id.
+     */
+    private long getRealmRowId(TableOrView table, int realmIndex) {
+        long rowPrimaryId;
         if (animatePrimaryIdType == RealmFieldType.INTEGER) {
-            rowPrimaryId = row.getLong(animatePrimaryColumnIndex);
+            rowPrimaryId = table.getLong(animatePrimaryColumnIndex, realmIndex);
         } else if (animatePrimaryIdType == RealmFieldType.STRING) {
-            rowPrimaryId = row.getString(animatePrimaryColumnIndex);
+            rowPrimaryId = Fingerprint.of(table.getString(animatePrimaryColumnIndex, realmIndex));
         } else {
             throw new IllegalStateException("Unknown animatedIdType");
         }
 
         if (animateExtraColumnIndex != -1) {
-            String rowPrimaryIdStr = (rowPrimaryId instanceof String)
-                    ? (String) rowPrimaryId : String.valueOf(rowPrimaryId);
+            long extraId;
             if (animateExtraIdType == RealmFieldType.INTEGER) {
-                return rowPrimaryIdStr + String.valueOf(row.getLong(animateExtraColumnIndex));
+                extraId = table.getLong(animateExtraColumnIndex, realmIndex);
             } else if (animateExtraIdType == RealmFieldType.STRING) {
-                return rowPrimaryIdStr + row.getString(animateExtraColumnIndex);
+                extraId = Fingerprint.of(table.getString(animateExtraColumnIndex, realmIndex));
             } else if (animateExtraIdType == RealmFieldType.DATE) {
-                return rowPrimaryIdStr + row.getDate(animateExtraColumnIndex).getTime();
+                final Date date = table.getDate(animateExtraColumnIndex, realmIndex);
+                extraId = date == null ? Fingerprint.of((String) null) : date.getTime();
             } else {
                 throw new IllegalStateException("Unknown animateExtraIdType");
             }
+            return Fingerprint.mix(rowPrimaryId, extraId);
         } else {
             return rowPrimaryId;
         }
     }
 
     private void updateRowWrappers() {
+        if (!addSectionHeaders) {
+            return;
+        }
         if (realmResults == null) {
+            sectionIndex.clear();
+            realmRowKeys = null;
             return;
         }
-        if (addSectionHeaders) {
-            String lastHeader = "";
-            int headerCount = 0;
-            int sectionFirstPosition = 0;
-            rowWrappers.clear();
-
-            final long headerIndex = realmResults.getTableOrView().getTable().getColumnIndex(headerColumnName);
-            int i = 0;
-            for (RealmModel result : realmResults) {
-                Object rawHeader;
-                RealmFieldType fieldType = ((RealmObjectProxy) result)
-                        .realmGet$proxyState().getRow$realm().getColumnType(headerIndex);
-
-                if (fieldType == RealmFieldType.STRING) {
-                    rawHeader = ((RealmObjectProxy) result)
-                            .realmGet$proxyState().getRow$realm().getString(headerIndex);
-
-                } else if (fieldType == RealmFieldType.BOOLEAN) {
-                    rawHeader = ((RealmObjectProxy) result)
-                            .realmGet$proxyState().getRow$realm().getBoolean(headerIndex);
-                } else if (fieldType == RealmFieldType.INTEGER) {
-                    rawHeader = ((RealmObjectProxy) result)
-                            .realmGet$proxyState().getRow$realm().getLong(headerIndex);
-                } else {
-                    throw new IllegalStateException("columnValue type not supported");
-                }
+        if (headerColumnType == null) {
+            final ColumnMetadata metadata = getColumnMetadata();
+            headerColumnIndex = metadata.getColumnIndex(headerColumnName);
+            if (headerColumnIndex == TableOrView.NO_MATCH) {
+                throw new IllegalStateException("Unknown headerColumnName: " + headerColumnName);
+            }
+            headerColumnType = metadata.getColumnType(headerColumnIndex);
+            if (headerColumnType != RealmFieldType.STRING &&
+                    headerColumnType != RealmFieldType.BOOLEAN &&
+                    headerColumnType != RealmFieldType.INTEGER) {
+                throw new IllegalStateException("columnValue type not supported");
+            }
+        }
+        final RowReader rows = getRowReader();
+
+        // The row keys are only available if the rows have a primary key. Without them or without
+        // a previous state, the sections are rebuilt from scratch.
+        final IdSnapshot newRowKeys =
+                animateResults ? RowSnapshots.readRowKeys(rows, obtainRowKeys()) : null;
+        if (newRowKeys == null || realmRowKeys == null) {
+            sectionIndex.rebuild(rows);
+        } else {
+            sectionIndex.update(realmRowKeys, newRowKeys, rows);
+        }
+        // The previous row keys are only read on the main thread, so they can be refilled by the
+        // next update.
+        if (realmRowKeys != null) {
+            spareRowKeys = realmRowKeys;
+        }
+        realmRowKeys = newRowKeys;
+    }
 
-                String header = createHeaderFromColumnValue(rawHeader);
-                if (!TextUtils.equals(lastHeader, header)) {
-                    // Insert new header view and update section data.
-                    sectionFirstPosition = i + headerCount;
-                    lastHeader = header;
-                    headerCount += 1;
+    /**
+     * Returns the recycled row keys if there are any, like {@link #obtainIdSnapshot()}.
+     */
+    private IdSnapshot obtainRowKeys() {
+        final IdSnapshot rowKeys =
+                spareRowKeys != null ? spareRowKeys : new IdSnapshot(realmResults.size());
+        spareRowKeys = null;
+        return rowKeys;
+    }
 
-                    rowWrappers.add(new RowWrapper(sectionFirstPosition, header));
-                }
-                rowWrappers.add(new RowWrapper(i++, sectionFirstPosition));
+    /**
+     * Returns the {@link RowReader} over the current results.
+     */
+    private RowReader getRowReader() {
+        rowReader.table = realmResults.getTableOrView();
+        return rowReader;
+    }
+
+    private final RealmRowReader rowReader = new RealmRowReader();
+
+    /**
+     * Reads the rows of the results with the animate, content and header columns of the adapter.
+     */
+    private class RealmRowReader implements RowReader {
+
+        private TableOrView table;
+
+        @Override
+        public int size() {
+            return realmResults.size();
+        }
+
+        @Override
+        public long getRowId(int position) {
+            return getRealmRowId(table, position);
+        }
+
+        @Override
+        public void readContent(int position, long[] values) {
+            readRealmRowContent(table, position, values);
+        }
+
+        @Override
+        public long getHeaderKey(int position) {
+            if (headerColumnType == RealmFieldType.STRING) {
+                return Fingerprint.of(table.getString(headerColumnIndex, position));
+            } else if (headerColumnType == RealmFieldType.BOOLEAN) {
+                return table.getBoolean(headerColumnIndex, position) ? 1 : 0;
             }
+            return table.getLong(headerColumnIndex, position);
+        }
+
+        @Override
+        public void readHeaders(int start, String[] headers) {
+            readRealmRowHeaders(table, headerColumnIndex, headerColumnType, start, headers);
         }
     }
 
+    /**
+     * Reads the headers of the realm rows from start on into the headers array.
+     */
+    private void readRealmRowHeaders(
+            TableOrView table,
+            long headerIndex,
+            RealmFieldType headerType,
+            int start,
+            String[] headers) {
+        if (headerType == RealmFieldType.STRING) {
+            for (int i = 0; i < headers.length; i++) {
+                headers[i] = createHeaderFromColumnValue(table.getString(headerIndex, start + i));
+            }
+        } else if (headerType == RealmFieldType.BOOLEAN) {
+            for (int i = 0; i < headers.length; i++) {
+                headers[i] = createHeaderFromColumnValue(table.getBoolean(headerIndex, start + i));
+            }
+        } else {
+            for (int i = 0; i < headers.length; i++) {
+                headers[i] = createHeaderFromColumnValue(table.getLong(headerIndex, start + i));
+            }
+        }
+    }
+
+    /**
+     * Returns the section mapping of the LinearLayoutWithHeaders type.
+     */
+    public SectionIndex getSectionIndex() {
+        return sectionIndex;
+    }
+
+    /**
+     * Returns a read only view of the rows. The {@link RowWrapper}s are created on access, prefer
+     * {@link #getSectionIndex()} instead.
+     */
     public List<RowWrapper> getRowWrappers() {
-        return rowWrappers;
+        return rowWrappersView;
     }
 
+    private final List<RowWrapper> rowWrappersView = new AbstractList<RowWrapper>() {
+        @Override
+        public RowWrapper get(int position) {
+            if (!addSectionHeaders || position < 0 || position >= sectionIndex.size()) {
+                throw new IndexOutOfBoundsException(
+                        "Position: " + position + ", Size: " + size());
+            }
+            final int section = sectionIndex.getSection(position);
+            final int sectionPosition = sectionIndex.getSectionPosition(section);
+            if (position == sectionPosition) {
+                return new RowWrapper(sectionPosition, sectionIndex.getHeader(section));
+            }
+            return new RowWrapper(position - section - 1, sectionPosition);
+        }
+
+        @Override
+        public int size() {
+            return addSectionHeaders ? sectionIndex.size() : 0;
+        }
+    };
+
     private RealmChangeListener<RealmResults<T>> getRealmChangeListener() {
         return new RealmChangeListener<RealmResults<T>>() {
             @Override
             public void onChange(RealmResults<T> element) {
-                if (animateResults && ids != null && !ids.isEmpty()) {
-                    updateRowWrappers();
-                    List newIds = getIdsOfRealmResults();
-                    // If the list is now empty, just notify the recyclerView of the change.
-                    if (newIds.isEmpty()) {
-                        ids = newIds;
-                        notifyDataSetChanged();
-                        return;
-                    }
-                    Patch patch = DiffUtils.diff(ids, newIds);
-                    List    <Delta> deltas = patch.getDeltas();
-                    ids = newIds;
-                    if (deltas.isEmpty()) {
-                        // Nothing has changed - most likely because the notification was for
-                        // a different object/table
-                    } else if (addSectionHeaders) {
-                        // If sectionHeaders are enabled, the animations have some special cases and
-                        // the non-animated rows need to be updated as well.
-                        Delta delta = deltas.get(0);
-                        if (delta.getType() == Delta.TYPE.INSERT) {
-                            if (delta.getRevised().size() == 1) {
-                                notifyItemInserted(delta.getRevised().getPosition());
-                            } else {
-                                final Chunk revised = delta.getRevised();
-                                notifyItemRangeInserted(revised.getPosition(), revised.size());
-                            }
-                        } else if (delta.getType() == Delta.TYPE.DELETE) {
-                            if (delta.getOriginal().size() == 1) {
-                                notifyItemRemoved(delta.getOriginal().getPosition());
-                            } else {
-                                // Note: The position zero check is to hack around a indexOutOfBound
-                                // exception that happens when the zero position is animated out.
-                                if (delta.getOriginal().getPosition() == 0) {
-                                    notifyDataSetChanged();
-                                    return;
-                                } else {
-                                    notifyItemRangeRemoved(
-                                            delta.getOriginal().getPosition(),
-                                            delta.getOriginal().size());
-                                }
-                            }
-
-                            if (delta.getOriginal().getPosition() - 1 > 0) {
-                                notifyItemRangeChanged(
-                                        0,
-                                        delta.getOriginal().getPosition() - 1);
-                            }
-                            if (delta.getOriginal().getPosition() > 0 && newIds.size() > 0) {
-                                notifyItemRangeChanged(
-                                        delta.getOriginal().getPosition(),
-                                        newIds.size() - 1);
-                            }
-                        } else {
-                            notifyDataSetChanged();
+                if (coalescingPolicy == null) {
+                    dispatchChange();
+                    return;
+                }
+                if (!hasDeferredChange) {
+                    hasDeferredChange = true;
+                    firstDeferredChangeTime = SystemClock.uptimeMillis();
+                }
+                scheduleDeferredChange();
+            }
+        };
+    }
+
+    /**
+     * Dispatches the changes of the results since the last dispatched ids.
+     */
+    private void dispatchChange() {
+        lastDispatchTime = SystemClock.uptimeMillis();
+        final long changeStart = startPhase();
+        if (animateResults && ids != null && !ids.isEmpty()) {
+            long start = startPhase();
+            updateRowWrappers();
+            if (addSectionHeaders) {
+                endPhase(AdapterMetrics.Phase.SECTIONS, start);
+            }
+            start = startPhase();
+            IdSnapshot newIds = getIdsOfRealmResults();
+            endPhase(AdapterMetrics.Phase.SNAPSHOT, start);
+            // If the list is now empty, just notify the recyclerView of the change.
+            if (newIds.isEmpty()) {
+                cancelPendingDiff();
+                dispatchedRealmItemCount = getRealmItemCount();
+                setIds(newIds);
+                clearStaleRows();
+                notifyDataSetChanged();
+                recordUpdate(true, -1, newIds);
+            } else if (diffExecutor != null) {
+                calculateDiffAsync(newIds);
+            } else {
+                start = startPhase();
+                final DiffResult result = diffStrategy.calculateDiff(ids, newIds);
+                endPhase(AdapterMetrics.Phase.DIFF, start);
+                dispatchedRealmItemCount = getRealmItemCount();
+                dispatchDiffResult(result, newIds);
+            }
+        } else {
+            cancelPendingDiff();
+            final long start = startPhase();
+            updateRowWrappers();
+            if (addSectionHeaders) {
+                endPhase(AdapterMetrics.Phase.SECTIONS, start);
+            }
+            dispatchedRealmItemCount = getRealmItemCount();
+            clearStaleRows();
+            notifyDataSetChanged();
+            setIds(getIdsOfRealmResults());
+            recordUpdate(true, -1, ids);
+        }
+        endPhase(AdapterMetrics.Phase.CHANGE, changeStart);
+    }
+
+    private void scheduleDeferredChange() {
+        mainHandler.removeCallbacks(deferredChangeRunnable);
+        if (coalescingPolicy.isDeferWhileScrolling() && scrolling) {
+            // Scheduled again once the recyclerView is idle.
+            return;
+        }
+        final long now = SystemClock.uptimeMillis();
+        final long dispatchTime = coalescingPolicy.getDispatchTime(
+                now, firstDeferredChangeTime, lastDispatchTime);
+        mainHandler.postDelayed(deferredChangeRunnable, Math.max(0, dispatchTime - now));
+    }
+
+    private void dispatchDeferredChange() {
+        cancelDeferredChange();
+        dispatchChange();
+    }
+
+    private void cancelDeferredChange() {
+        hasDeferredChange = false;
+        mainHandler.removeCallbacks(deferredChangeRunnable);
+    }
+
+    private final Runnable deferredChangeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            dispatchDeferredChange();
+        }
+    };
+
+    /**
+     * Takes a new snapshot of the ids, e.g. after the snapshot format changed. A change that
+     * hasn't been dispatched yet can't be diffed anymore and is dispatched as a full refresh.
+     */
+    private void resetIds() {
+        final boolean hasUndispatchedChange = hasUndispatchedChange();
+        cancelPendingDiff();
+        cancelDeferredChange();
+        if (hasUndispatchedChange) {
+            updateRowWrappers();
+            dispatchedRealmItemCount = getRealmItemCount();
+        }
+        setIds(getIdsOfRealmResults());
+        if (hasUndispatchedChange) {
+            clearStaleRows();
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Calculates the diff between the last dispatched ids and the newIds on the diffExecutor.
+     * The ids are always diffed against the last dispatched snapshot, so a result that has been
+     * superseded by a newer change can simply be dropped. Until the result is dispatched, the
+     * adapter keeps reporting the dispatched item count, like for a deferred change.
+     */
+    private void calculateDiffAsync(final IdSnapshot newIds) {
+        final IdSnapshot oldIds = ids;
+        final DiffStrategy strategy = diffStrategy;
+        final AdapterMetrics metrics = this.metrics;
+        final int generation = ++diffGeneration;
+        final int realmItemCount = getRealmItemCount();
+        pendingDiffCount++;
+        hasPendingDiff = true;
+        diffExecutor.execute(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        final long start = metrics != null ? metrics.start() : 0;
+                        DiffResult diffResult;
+                        try {
+                            diffResult = strategy.calculateDiff(oldIds, newIds);
+                        } catch (RuntimeException e) {
+                            diffResult = DiffResult.REFRESH;
                         }
-                    } else {
-                        for (Delta delta : deltas) {
-                            if (delta.getType() == Delta.TYPE.INSERT) {
-                                notifyItemRangeInserted(
-                                        delta.getRevised().getPosition(),
-                                        delta.getRevised().size());
-                            } else if (delta.getType() == Delta.TYPE.DELETE) {
-                                notifyItemRangeRemoved(
-                                        delta.getOriginal().getPosition(),
-                                        delta.getOriginal().size());
-                            } else {
-                                notifyItemRangeChanged(
-                                        delta.getRevised().getPosition(),
-                                        delta.getRevised().size());
-                            }
+                        if (metrics != null) {
+                            metrics.end(AdapterMetrics.Phase.DIFF, start);
                         }
+                        final DiffResult result = diffResult;
+                        mainHandler.post(
+                                new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        pendingDiffCount--;
+                                        if (generation != diffGeneration) {
+                                            // A newer change is pending or has been applied.
+                                            return;
+                                        }
+                                        hasPendingDiff = false;
+                                        dispatchedRealmItemCount = realmItemCount;
+                                        dispatchDiffResult(result, newIds);
+                                    }
+                                }
+                        );
+                    }
+                }
+        );
+    }
+
+    /**
+     * Drops the result of a diff that is still in flight.
+     */
+    private void cancelPendingDiff() {
+        diffGeneration++;
+        hasPendingDiff = false;
+    }
+
+    private void dispatchDiffResult(DiffResult result, IdSnapshot newIds) {
+        final long start = startPhase();
+        notifiedDataSetChanged = false;
+        dispatchDiffResult(result, ids, newIds);
+        endPhase(AdapterMetrics.Phase.DISPATCH, start);
+        recordUpdate(
+                notifiedDataSetChanged,
+                result.isRefresh() ? -1 : result.getUpdateCount(),
+                newIds);
+    }
+
+    private void dispatchDiffResult(DiffResult result, IdSnapshot oldIds, IdSnapshot newIds) {
+        setIds(newIds);
+        if (diffCostModel != null) {
+            result = diffCostModel.apply(result, oldIds.size(), newIds.size());
+        }
+        if (windowSize != -1 && !result.isRefresh()) {
+            dispatchWindowDiffResult(result, oldIds, newIds);
+        } else if (result.isRefresh()) {
+            notifyDataSetChanged();
+        } else if (result.isEmpty()) {
+            // Nothing has changed - most likely because the notification was for
+            // a different object/table
+        } else if (addSectionHeaders) {
+            dispatchSectionDiffResult(result, oldIds, newIds);
+        } else {
+            dispatchUpdates(result, oldIds, newIds, 0);
+        }
+        if (result.isRefresh()) {
+            clearStaleRows();
+        } else {
+            rebindStaleRows(result, oldIds.getOffset(), newIds.getOffset(), oldIds.size());
+        }
+    }
+
+    /**
+     * Dispatches the diff of the rows and headers. The headers are part of the ids, so they are
+     * inserted, removed and moved like the rows. The rows whose section starts at a different
+     * position afterwards only get their section layout params updated.
+     */
+    private void dispatchSectionDiffResult(
+            DiffResult result, IdSnapshot oldIds, IdSnapshot newIds) {
+        for (int i = 0; i < result.getUpdateCount(); i++) {
+            // Note: The position zero check is to hack around a indexOutOfBound
+            // exception that happens when the zero position is animated out.
+            if (result.getType(i) == DiffResult.REMOVE
+                    && result.getPosition(i) == 0
+                    && result.getCount(i) > 1) {
+                notifyDataSetChanged();
+                return;
+            }
+        }
+        dispatchUpdates(result, oldIds, newIds, 0);
+
+        // Only the section positions from the first update on can have changed. If the size
+        // hasn't changed, the sections behind the section of the last update are unchanged.
+        final DiffResult collapsed = result.collapse(oldIds.size());
+        if (collapsed.isEmpty()) {
+            return;
+        }
+        final int start = collapsed.getPosition(0);
+        int end = newIds.size();
+        if (oldIds.size() == newIds.size()) {
+            final int lastSection = sectionIndex.getSection(start + collapsed.getCount(0) - 1);
+            if (lastSection + 1 < sectionIndex.getSectionCount()) {
+                end = sectionIndex.getSectionPosition(lastSection + 1);
+            }
+        }
+        if (end > start) {
+            notifyItemRangeChanged(start, end - start, PAYLOAD_SECTION_CHANGED);
+        }
+    }
+
+    /**
+     * Dispatches the diff of a window. The rows outside of the window haven't been diffed. The
+     * rows inserted or removed in front of it are dispatched at its front edge, the remaining
+     * count difference right behind it, and the rows outside are rebound.
+     */
+    private void dispatchWindowDiffResult(
+            DiffResult result, IdSnapshot oldIds, IdSnapshot newIds) {
+        final int offset = newIds.getOffset();
+        final int frontDelta = offset - oldIds.getOffset();
+        if (frontDelta != 0 && frontDelta != windowShift) {
+            // The window had to move because the results shrunk, or its first row is gone.
+            notifyDataSetChanged();
+            return;
+        }
+        if (result.isEmpty() && oldIds.getTotalSize() == newIds.getTotalSize()) {
+            return;
+        }
+        if (frontDelta > 0) {
+            notifyingCallback.onInserted(oldIds.getOffset(), frontDelta);
+        } else if (frontDelta < 0) {
+            notifyingCallback.onRemoved(offset, -frontDelta);
+        }
+        dispatchUpdates(result, oldIds, newIds, offset);
+
+        final int outsideDelta = (newIds.getTotalSize() - oldIds.getTotalSize())
+                - (newIds.size() - oldIds.size()) - frontDelta;
+        final int end = offset + newIds.size();
+        if (outsideDelta > 0) {
+            notifyingCallback.onInserted(end, outsideDelta);
+        } else if (outsideDelta < 0) {
+            notifyingCallback.onRemoved(end, -outsideDelta);
+        }
+        if (offset > 0) {
+            notifyItemRangeChanged(getHeadCount(), offset);
+        }
+        if (newIds.getTotalSize() > end) {
+            notifyItemRangeChanged(getHeadCount() + end, newIds.getTotalSize() - end);
+        }
+    }
+
+    /**
+     * Dispatches the updates shifted by the offset. The changes of content rows are dispatched
+     * with a {@link ContentChange} of the columns that differ between the old and the new
+     * snapshot. The rows are looked up in the snapshots by undoing the updates in front of the
+     * change and applying the ones after it, so this is limited to small diffs.
+     */
+    private void dispatchUpdates(
+            DiffResult result, IdSnapshot oldIds, IdSnapshot newIds, int offset) {
+        final boolean hasColumns = oldIds.getColumnCount() > 0
+                && oldIds.getColumnCount() == newIds.getColumnCount()
+                && result.getUpdateCount() <= MAX_CONTENT_CHANGE_UPDATES;
+        final int updateCount = result.getUpdateCount();
+        for (int i = 0; i < updateCount; i++) {
+            final int position = result.getPosition(i);
+            final int count = result.getCount(i);
+            switch (result.getType(i)) {
+                case DiffResult.INSERT:
+                    notifyingCallback.onInserted(position + offset, count);
+                    break;
+                case DiffResult.REMOVE:
+                    notifyingCallback.onRemoved(position + offset, count);
+                    break;
+                case DiffResult.MOVE:
+                    notifyingCallback.onMoved(position + offset, count + offset);
+                    break;
+                default:
+                    if (hasColumns) {
+                        dispatchContentChanges(result, i, oldIds, newIds, offset);
+                    } else {
+                        notifyingCallback.onChanged(position + offset, count);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Notifies the rows of the change at the updateIndex, merging the neighbouring rows with the
+     * same changed columns into one notification.
+     */
+    private void dispatchContentChanges(
+            DiffResult result, int updateIndex, IdSnapshot oldIds, IdSnapshot newIds, int offset) {
+        final int position = result.getPosition(updateIndex);
+        final int end = position + result.getCount(updateIndex);
+        int rangeStart = position;
+        long rangeColumns = 0;
+        for (int row = position; row < end; row++) {
+            final int oldIndex = result.getPositionBefore(row, 0, updateIndex);
+            final int newIndex =
+                    result.getPositionAfter(row, updateIndex + 1, result.getUpdateCount());
+            // A collapsed diff can also change rows into different rows.
+            final long changedColumns = oldIndex == -1 || newIndex == -1
+                    || oldIds.get(oldIndex) != newIds.get(newIndex)
+                    ? -1L : oldIds.getChangedColumns(oldIndex, newIds, newIndex);
+            if (row > rangeStart && changedColumns != rangeColumns) {
+                notifyContentChange(rangeStart + offset, row - rangeStart, rangeColumns);
+                rangeStart = row;
+            }
+            rangeColumns = changedColumns;
+        }
+        notifyContentChange(rangeStart + offset, end - rangeStart, rangeColumns);
+    }
+
+    private void notifyContentChange(int position, int count, long changedColumns) {
+        notifyItemRangeChanged(
+                getHeadCount() + position,
+                count,
+                changedColumns == -1L
+                        ? PAYLOAD_CONTENT_CHANGED : new ContentChange(changedColumns));
+    }
+
+    private long startPhase() {
+        return metrics != null ? metrics.start() : 0;
+    }
+
+    private void endPhase(AdapterMetrics.Phase phase, long start) {
+        if (metrics != null) {
+            metrics.end(phase, start);
+        }
+    }
+
+    /**
+     * Records a dispatched update. The allocations are the arrays the id snapshot and the row
+     * keys allocated or grew since the previous update, plus an estimate of the diff result.
+     */
+    private void recordUpdate(boolean fullRefresh, int diffSize, IdSnapshot newIds) {
+        if (metrics == null) {
+            return;
+        }
+        long allocatedBytes = newIds.takeAllocatedBytes();
+        if (realmRowKeys != null) {
+            allocatedBytes += realmRowKeys.takeAllocatedBytes();
+        }
+        if (diffSize > 0) {
+            allocatedBytes += 12L * diffSize;
+        }
+        metrics.recordUpdate(fullRefresh, diffSize, allocatedBytes);
+    }
+
+    private final RecyclerView.AdapterDataObserver metricsObserver =
+            new RecyclerView.AdapterDataObserver() {
+                @Override
+                public void onChanged() {
+                    notifiedDataSetChanged = true;
+                    if (metrics != null) {
+                        metrics.recordNotification(true);
                     }
-                } else {
-                    notifyDataSetChanged();
-                    ids = getIdsOfRealmResults();
                 }
+
+                @Override
+                public void onItemRangeChanged(int positionStart, int itemCount) {
+                    recordGranularNotification();
+                }
+
+                @Override
+                public void onItemRangeInserted(int positionStart, int itemCount) {
+                    recordGranularNotification();
+                }
+
+                @Override
+                public void onItemRangeRemoved(int positionStart, int itemCount) {
+                    recordGranularNotification();
+                }
+
+                @Override
+                public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                    recordGranularNotification();
+                }
+
+                private void recordGranularNotification() {
+                    if (metrics != null) {
+                        metrics.recordNotification(false);
+                    }
+                }
+            };
+
+    /**
+     * Notifies the updates of the realm rows, shifted behind the head rows.
+     */
+    private final UpdateCallback notifyingCallback = new UpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(getHeadCount() + position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(getHeadCount() + position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(getHeadCount() + fromPosition, getHeadCount() + toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            if (animateContentColumnIndexes != null) {
+                notifyItemRangeChanged(
+                        getHeadCount() + position, count, PAYLOAD_CONTENT_CHANGED);
+            } else {
+                notifyItemRangeChanged(getHeadCount() + position, count);
             }
-        };
+        }
+    };
+
+    /**
+     * Returns the position of the LoadMore item. It is in front of the Footer if both are shown.
+     */
+    private int getLoadMorePosition() {
+        return getItemCount() - 1 - (footerItem == null ? 0 : 1);
+    }
+
+    /**
+     * Notifies the insertion or removal of the LoadMore, Footer or LoadPrevious item. The
+     * position is relative to the dispatched rows, even while a change hasn't been dispatched.
+     */
+    private void notifyExtraItem(int position, boolean inserted) {
+        if (inserted) {
+            notifyItemInserted(position);
+        } else {
+            notifyItemRemoved(position);
+        }
     }
 
     /**
      * Adds the LoadMore item.
      */
     public void addLoadMore() {
-        if (loadMoreItem != null || footerItem != null) {
+        if (loadMoreItem != null) {
             return;
         }
         loadMoreItem = new Object();
-        notifyDataSetChanged();
+        notifyExtraItem(getLoadMorePosition(), true);
     }
 
     /**
@@ -595,19 +1863,45 @@ public abstract class RealmBasedRecyclerViewAdapter
         if (loadMoreItem == null) {
             return;
         }
+        final int position = getLoadMorePosition();
         loadMoreItem = null;
-        notifyDataSetChanged();
+        notifyExtraItem(position, false);
+    }
+
+    /**
+     * Adds the LoadPrevious item in front of the realm rows. Not supported with section headers.
+     */
+    public void addLoadPrevious() {
+        if (addSectionHeaders) {
+            throw new IllegalStateException("LoadPrevious is not supported with section headers.");
+        }
+        if (loadPreviousItem != null) {
+            return;
+        }
+        loadPreviousItem = new Object();
+        notifyExtraItem(0, true);
+    }
+
+    /**
+     * Removes the LoadPrevious item.
+     */
+    public void removeLoadPrevious() {
+        if (loadPreviousItem == null) {
+            return;
+        }
+        loadPreviousItem = null;
+        notifyExtraItem(0, false);
     }
 
     /**
-     * Adds the Footer item.
+     * Adds the Footer item. It is the last row, behind the LoadMore item if that is shown too.
      */
     public void addFooter() {
-        if (footerItem != null || loadMoreItem != null) {
+        if (footerItem != null) {
             return;
         }
         footerItem = new Object();
-        notifyDataSetChanged();
+        notifyExtraItem(getItemCount() - 1, true);
     }
 
     /**
@@ -617,20 +1911,57 @@ public abstract class RealmBasedRecyclerViewAdapter
         if (footerItem == null) {
             return;
         }
+        final int position = getItemCount() - 1;
         footerItem = null;
-        notifyDataSetChanged();
+        notifyExtraItem(position, false);
     }
 
     /**
      * Called when an item has been dismissed by a swipe.
      *
      * Only supported with type linearLayout and thus the realmResults can be accessed directly.
-     * If it is extended to LinearLayoutWithHeaders, rowWrappers will have to be used.
+     * If it is extended to LinearLayoutWithHeaders, the sectionIndex will have to be used.
+     *
+     * The position is one of the rows the recyclerView has been notified about. While a change
+     * hasn't been dispatched, the row is looked up by its id instead. If it doesn't exist anymore,
+     * nothing is deleted and the row is bound again.
      */
     public void onItemSwipedDismiss(int position) {
+        final int realmIndex = getDispatchedRealmIndex(position);
+        if (realmIndex == -1) {
+            notifyItemChanged(position);
+            return;
+        }
         final BaseRealm realm = realmResults.realm;
         realm.beginTransaction();
-        realmResults.deleteFromRealm(position);
+        realmResults.deleteFromRealm(realmIndex);
         realm.commitTransaction();
     }
+
+    /**
+     * Returns the index in the results of the row the recyclerView shows at the position or -1 if
+     * there is none. The dispatched ids are searched for the row while a change hasn't been
+     * dispatched, as the positions of the results may have shifted.
+     */
+    private int getDispatchedRealmIndex(int position) {
+        if (realmResults == null) {
+            return -1;
+        }
+        if (!hasUndispatchedChange()) {
+            final int realmIndex = position - getHeadCount();
+            return realmIndex >= 0 && realmIndex < realmResults.size() ? realmIndex : -1;
+        }
+        final int index = position - getHeadCount() - ids.getOffset();
+        if (!animateResults || index < 0 || index >= ids.size()) {
+            return -1;
+        }
+        final long id = ids.get(index);
+        final TableOrView table = realmResults.getTableOrView();
+        for (int i = 0; i < realmResults.size(); i++) {
+            if (getRealmRowId(table, i) == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
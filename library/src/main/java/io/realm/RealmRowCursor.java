@@ -0,0 +1,58 @@
+package io.realm;
+
+import java.util.Date;
+
+import io.realm.internal.TableOrView;
+
+/**
+ * Reads the columns of a single row of the results without creating a proxy object for it. The
+ * adapter moves one cursor from row to row, so it is only valid inside
+ * {@link RealmBasedRecyclerViewAdapter#onBindRealmViewHolder(RealmViewHolder, int, RealmRowCursor)}
+ * and must not be kept. The column indexes are resolved once with
+ * {@link RealmBasedRecyclerViewAdapter#getColumnIndex(String)}.
+ */
+public class RealmRowCursor {
+
+    private TableOrView table;
+    private int position = -1;
+
+    void moveTo(TableOrView table, int position) {
+        this.table = table;
+        this.position = position;
+    }
+
+    /**
+     * Returns the position of the row in the results.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    public long getLong(long columnIndex) {
+        return table.getLong(columnIndex, position);
+    }
+
+    public boolean getBoolean(long columnIndex) {
+        return table.getBoolean(columnIndex, position);
+    }
+
+    public float getFloat(long columnIndex) {
+        return table.getFloat(columnIndex, position);
+    }
+
+    public double getDouble(long columnIndex) {
+        return table.getDouble(columnIndex, position);
+    }
+
+    public String getString(long columnIndex) {
+        return table.getString(columnIndex, position);
+    }
+
+    public Date getDate(long columnIndex) {
+        return table.getDate(columnIndex, position);
+    }
+
+    public boolean isNull(long columnIndex) {
+        return table.isNull(columnIndex, position);
+    }
+}